@@ -0,0 +1,25 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.CachedRecord;
+
+/**
+ * @author brent
+ * @since 8/7/18.
+ */
+public class BenchmarkRecord extends CachedRecord<Integer, Integer> {
+
+  private static final long serialVersionUID = 6125398174632093571L;
+
+  public BenchmarkRecord(Integer key) {
+    super(key, key);
+  }
+
+  public BenchmarkRecord(Integer key, Long ttl) {
+    super(key, key, ttl);
+  }
+
+  @Override
+  public Integer getValue() {
+    return super.getValue(Integer.class);
+  }
+}
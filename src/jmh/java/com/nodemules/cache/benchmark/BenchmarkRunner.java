@@ -0,0 +1,48 @@
+package com.nodemules.cache.benchmark;
+
+import java.util.Arrays;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the concurrent benchmarks once per thread count, since JMH only takes a single
+ * {@code -t}. Configured through system properties:
+ *
+ * <ul>
+ *   <li>{@code benchmark.include}: regex of benchmarks to run (default Read, Write and Mixed)</li>
+ *   <li>{@code benchmark.threads}: comma separated thread counts (default 1,4,16,64)</li>
+ *   <li>{@code benchmark.gc}: true to attach the GC/allocation profiler</li>
+ * </ul>
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    String include = System.getProperty("benchmark.include",
+        "(Read|Write|Mixed)Benchmark");
+    int[] threads = Arrays.stream(System.getProperty("benchmark.threads", "1,4,16,64").split(","))
+        .map(String::trim)
+        .mapToInt(Integer::parseInt)
+        .toArray();
+    for (int count : threads) {
+      ChainedOptionsBuilder options = new OptionsBuilder()
+          .include(include)
+          .threads(count)
+          .result("benchmark-" + count + "-threads.json")
+          .resultFormat(ResultFormatType.JSON);
+      if (Boolean.getBoolean("benchmark.gc")) {
+        options.addProfiler(GCProfiler.class);
+      }
+      new Runner(options.build()).run();
+    }
+  }
+}
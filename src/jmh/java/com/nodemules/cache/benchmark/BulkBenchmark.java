@@ -0,0 +1,127 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Cache#getAll} and {@link Cache#putAll} against the equivalent loops of single-key calls,
+ * per batch of {@code batchSize} keys.
+ *
+ * @author brent
+ * @since 8/14/18.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkBenchmark {
+
+  @Param({"100000"})
+  int population;
+
+  @Param({"0", "50000"})
+  long maximumSize;
+
+  @Param({"100", "1000"})
+  int batchSize;
+
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Cache.CacheBuilder<Integer, Integer> builder = Cache.<Integer, Integer>builder()
+        .ttl(60_000L)
+        .recordStats();
+    if (maximumSize > 0) {
+      builder.maximumSize(maximumSize);
+    }
+    cache = builder.build();
+    for (int i = 0; i < population; i++) {
+      cache.put(new BenchmarkRecord(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadBatch {
+
+    List<Integer> keys;
+    List<CachedRecord<Integer, Integer>> records;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp(BulkBenchmark benchmark) {
+      keys = Arrays.asList(KeyDistribution.ZIPFIAN.keys(benchmark.population,
+          KeyDistribution.LENGTH, Thread.currentThread().getId()));
+      records = new ArrayList<>(benchmark.batchSize);
+    }
+  }
+
+  @Benchmark
+  public Map<Integer, Integer> getAll(ThreadBatch batch) {
+    return cache.getAll(keys(batch));
+  }
+
+  @Benchmark
+  public Map<Integer, Integer> getLoop(ThreadBatch batch) {
+    Map<Integer, Integer> values = new HashMap<>();
+    for (Integer key : keys(batch)) {
+      values.put(key, cache.get(key));
+    }
+    return values;
+  }
+
+  @Benchmark
+  public long putAll(ThreadBatch batch) {
+    batch.records.clear();
+    for (Integer key : keys(batch)) {
+      batch.records.add(new BenchmarkRecord(key));
+    }
+    cache.putAll(batch.records);
+    return batch.records.size();
+  }
+
+  @Benchmark
+  public long putLoop(ThreadBatch batch) {
+    long puts = 0;
+    for (Integer key : keys(batch)) {
+      cache.put(new BenchmarkRecord(key));
+      puts++;
+    }
+    return puts;
+  }
+
+  /**
+   * The next {@code batchSize} keys of the thread's sequence, as a view without copying them.
+   */
+  private List<Integer> keys(ThreadBatch batch) {
+    int from = batch.index;
+    batch.index = from + batchSize > KeyDistribution.LENGTH - batchSize ? 0 : from + batchSize;
+    return batch.keys.subList(from, from + batchSize);
+  }
+}
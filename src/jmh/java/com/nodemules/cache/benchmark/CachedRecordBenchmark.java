@@ -0,0 +1,42 @@
+package com.nodemules.cache.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of constructing the records every put allocates; run with {@code -prof gc} to see the
+ * bytes allocated per record.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CachedRecordBenchmark {
+
+  private static final Long TTL = 60_000L;
+
+  Integer key = 42;
+
+  @Benchmark
+  public BenchmarkRecord withoutTtl() {
+    return new BenchmarkRecord(key);
+  }
+
+  @Benchmark
+  public BenchmarkRecord withTtl() {
+    return new BenchmarkRecord(key, TTL);
+  }
+}
@@ -0,0 +1,76 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The cost of one maintenance sweep over caches holding millions of records with TTLs spread over
+ * an hour, driven by a manual ticker so each sweep expires a known share of the cache.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 1)
+@Measurement(iterations = 10, batchSize = 1)
+@Threads(1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExpiryBenchmark {
+
+  private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+  @Param({"1000000", "10000000"})
+  int size;
+
+  /**
+   * Share of the hour the ticker advances before the sweep; 0 measures a sweep with nothing due.
+   */
+  @Param({"0", "0.01", "0.1"})
+  double advance;
+
+  ManualTicker ticker;
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Invocation)
+  public void setUp() {
+    ticker = new ManualTicker();
+    cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .build();
+    Random random = new Random(size);
+    for (int i = 0; i < size; i++) {
+      cache.put(new BenchmarkRecord(i, 1 + (long) (random.nextDouble() * HOUR)));
+    }
+    cache.cleanUp();
+    ticker.advance((long) (advance * HOUR), TimeUnit.MILLISECONDS);
+  }
+
+  @TearDown(Level.Invocation)
+  public void tearDown() {
+    cache.close();
+    cache = null;
+  }
+
+  @Benchmark
+  public long sweep() {
+    cache.cleanUp();
+    return cache.size();
+  }
+}
@@ -0,0 +1,114 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.LongKeyCache;
+
+/**
+ * Heap retained by a {@code Cache<Long, Integer>} against a {@link LongKeyCache} holding the same
+ * entries, measured as the growth in used heap after a full GC. The values are boxed before the
+ * first measurement and shared by both caches, so what is reported is the cost of the entries
+ * themselves. Run with a fixed heap and the parallel collector
+ * ({@code -Xms2g -Xmx2g -XX:+UseParallelGC}); the serial collector leaves some dead objects
+ * uncompacted after a full GC, which skews the next measurement. Configured through system
+ * properties:
+ *
+ * <ul>
+ *   <li>{@code footprint.entries}: comma separated entry counts (default 100000,1000000)</li>
+ *   <li>{@code footprint.ttl}: TTL in milliseconds, 0 for none (default 60000)</li>
+ * </ul>
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+public final class FootprintBenchmark {
+
+  /**
+   * Hold the values and the cache being measured, so that neither can be collected before the
+   * measurement ends.
+   */
+  private static Integer[] values;
+  private static Object retained;
+
+  private FootprintBenchmark() {
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    long ttl = Long.getLong("footprint.ttl", 60_000L);
+    for (String entries : System.getProperty("footprint.entries", "100000,1000000").split(",")) {
+      int count = Integer.parseInt(entries.trim());
+      values = new Integer[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = i;
+      }
+
+      measureCache(ttl);
+      measureLongKeyCache(ttl);
+    }
+  }
+
+  private static void measureCache(long ttl) throws InterruptedException {
+    long before = usedHeap();
+    Cache<Long, Integer> cache = Cache.<Long, Integer>builder().build();
+    for (int i = 0; i < values.length; i++) {
+      cache.put(new LongRecord((long) i, values[i], ttl > 0 ? ttl : null));
+    }
+    retained = cache;
+    report("Cache<Long, Integer>", cache.size(), usedHeap() - before);
+    retained = null;
+    cache.close();
+  }
+
+  private static void measureLongKeyCache(long ttl) throws InterruptedException {
+    long before = usedHeap();
+    LongKeyCache.LongKeyCacheBuilder<Integer> builder = LongKeyCache.builder();
+    if (ttl > 0) {
+      builder.ttl(ttl);
+    }
+    LongKeyCache<Integer> cache = builder.build();
+    for (int i = 0; i < values.length; i++) {
+      cache.put(i, values[i]);
+    }
+    retained = cache;
+    report("LongKeyCache<Integer>", cache.size(), usedHeap() - before);
+    retained = null;
+  }
+
+  /**
+   * Used heap once repeated full GCs stop freeing anything, since references cleared by one GC
+   * are only collected by a later one.
+   */
+  private static long usedHeap() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      System.gc();
+      Thread.sleep(100);
+      long now = runtime.totalMemory() - runtime.freeMemory();
+      if (now >= used) {
+        return now;
+      }
+      used = now;
+    }
+    return used;
+  }
+
+  private static void report(String name, long entries, long bytes) {
+    System.out.printf("%-22s entries=%,d retained=%,d bytes (%.1f bytes/entry)%n",
+        name, entries, bytes, (double) bytes / entries);
+  }
+
+  private static class LongRecord extends CachedRecord<Long, Integer> {
+
+    private static final long serialVersionUID = -4720412357920148822L;
+
+    LongRecord(Long key, Integer value, Long ttl) {
+      super(key, value, ttl);
+    }
+
+    @Override
+    public Integer getValue() {
+      return super.getValue(Integer.class);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.nodemules.cache.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * How benchmark keys are drawn from the population of cached keys.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+public enum KeyDistribution {
+
+  UNIFORM {
+    @Override
+    Integer[] keys(int population, int length, long seed) {
+      Random random = new Random(seed);
+      Integer[] keys = new Integer[length];
+      for (int i = 0; i < length; i++) {
+        keys[i] = random.nextInt(population);
+      }
+      return keys;
+    }
+  },
+
+  /**
+   * A Zipf distribution with exponent 1, so a few keys take most of the accesses.
+   */
+  ZIPFIAN {
+    @Override
+    Integer[] keys(int population, int length, long seed) {
+      double[] cdf = new double[population];
+      double sum = 0;
+      for (int i = 0; i < population; i++) {
+        sum += 1d / (i + 1);
+        cdf[i] = sum;
+      }
+      Random random = new Random(seed);
+      Integer[] keys = new Integer[length];
+      for (int i = 0; i < length; i++) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+        keys[i] = index < 0 ? -index - 1 : index;
+      }
+      return keys;
+    }
+  };
+
+  /**
+   * Length of each thread's key sequence; a power of two so it can be cycled with a mask.
+   */
+  static final int LENGTH = 1 << 16;
+  static final int MASK = LENGTH - 1;
+
+  /**
+   * Keys in [0, population), boxed up front so benchmarks don't measure autoboxing.
+   */
+  abstract Integer[] keys(int population, int length, long seed);
+}
@@ -0,0 +1,24 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Ticker;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A ticker that only moves when the benchmark advances it.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+class ManualTicker implements Ticker {
+
+  private volatile long nanos;
+
+  @Override
+  public long read() {
+    return nanos;
+  }
+
+  void advance(long duration, TimeUnit unit) {
+    nanos += unit.toNanos(duration);
+  }
+}
@@ -0,0 +1,103 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Interleaved reads and writes at a fixed ratio. Each thread follows the same repeating pattern of
+ * operations, so the ratio holds exactly without a random draw per operation.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixedBenchmark {
+
+  private static final int PATTERN = 100;
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  @Param({"100000"})
+  int population;
+
+  @Param({"100000"})
+  long maximumSize;
+
+  /**
+   * Percentage of operations that are reads; the rest are puts.
+   */
+  @Param({"100", "90", "75", "50"})
+  int readPercentage;
+
+  /**
+   * Number of segments; 1 keeps the single eviction lock and buffers of an unsegmented cache.
+   */
+  @Param({"1", "16"})
+  int concurrencyLevel;
+
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = Cache.<Integer, Integer>builder()
+        .maximumSize(maximumSize)
+        .concurrencyLevel(concurrencyLevel)
+        .build();
+    for (int i = 0; i < population; i++) {
+      cache.put(new BenchmarkRecord(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+
+    Integer[] keys;
+    boolean[] reads;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp(MixedBenchmark benchmark) {
+      keys = benchmark.distribution.keys(benchmark.population, KeyDistribution.LENGTH,
+          Thread.currentThread().getId());
+      reads = new boolean[PATTERN];
+      for (int i = 0; i < PATTERN; i++) {
+        reads[i] = i * benchmark.readPercentage / PATTERN
+            != (i + 1) * benchmark.readPercentage / PATTERN;
+      }
+    }
+  }
+
+  @Benchmark
+  public Integer readWrite(ThreadKeys keys) {
+    int index = keys.index++;
+    Integer key = keys.keys[index & KeyDistribution.MASK];
+    if (keys.reads[index % PATTERN]) {
+      return cache.get(key);
+    }
+    return cache.put(new BenchmarkRecord(key));
+  }
+}
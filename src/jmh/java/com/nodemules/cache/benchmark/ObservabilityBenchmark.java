@@ -0,0 +1,75 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheEventListener;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * What observability costs a cache hit while nobody is observing: no hook at all, the trace calls
+ * {@link Cache#get} used to make (with trace disabled), and the logging event listener (again with
+ * trace disabled).
+ *
+ * @author brent
+ * @since 8/9/18.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservabilityBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(Cache.class);
+  private static final int POPULATION = 1 << 10;
+
+  Cache<Integer, Integer> cache;
+  Cache<Integer, Integer> listenedCache;
+  Integer[] keys;
+  int index;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    cache = Cache.<Integer, Integer>builder().build();
+    listenedCache = Cache.<Integer, Integer>builder()
+        .eventListener(CacheEventListener.logging())
+        .build();
+    keys = KeyDistribution.UNIFORM.keys(POPULATION, KeyDistribution.LENGTH, 1);
+    for (int i = 0; i < POPULATION; i++) {
+      cache.put(new BenchmarkRecord(i));
+      listenedCache.put(new BenchmarkRecord(i));
+    }
+  }
+
+  @Benchmark
+  public Integer get() {
+    return cache.get(keys[index++ & KeyDistribution.MASK]);
+  }
+
+  @Benchmark
+  public Integer getWithTraceCalls() {
+    Integer key = keys[index++ & KeyDistribution.MASK];
+    log.trace("Getting entry from cache");
+    Integer value = cache.get(key);
+    log.trace("Returning entry from cache -> {}:{}", key, value);
+    return value;
+  }
+
+  @Benchmark
+  public Integer getWithLoggingListener() {
+    return listenedCache.get(keys[index++ & KeyDistribution.MASK]);
+  }
+}
@@ -0,0 +1,112 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.StorageMode;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A large cache of serialized values held on heap as JSON strings against the same values held
+ * off heap, under a read-mostly load that keeps replacing entries. Run with {@code -prof gc} and
+ * compare {@code gc.time}, and compare the full collection times: with the payloads off heap, old
+ * gen only holds keys and records.
+ *
+ * @author brent
+ * @since 8/10/18.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-XX:MaxDirectMemorySize=1g"})
+public class OffHeapBenchmark {
+
+  private static final int PAYLOAD_LENGTH = 500;
+  private static final int CHUNK_SIZE = 1024;
+
+  @Param({"HEAP", "OFF_HEAP"})
+  String mode;
+
+  @Param({"500000"})
+  int population;
+
+  /**
+   * One operation in this many replaces an entry instead of reading it.
+   */
+  @Param({"10"})
+  int writeEvery;
+
+  Cache<Integer, String> cache;
+  String payload;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    char[] chars = new char[PAYLOAD_LENGTH];
+    Arrays.fill(chars, 'x');
+    payload = new String(chars);
+    Cache.CacheBuilder<Integer, String> builder = Cache.builder();
+    if ("OFF_HEAP".equals(mode)) {
+      builder.offHeap((long) population * CHUNK_SIZE * 2);
+    } else {
+      builder.storageMode(StorageMode.VALUE);
+    }
+    cache = builder.build();
+    for (int i = 0; i < population; i++) {
+      cache.put(new PayloadRecord(i, payload));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+
+    Integer[] keys;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp(OffHeapBenchmark benchmark) {
+      keys = KeyDistribution.UNIFORM.keys(benchmark.population, KeyDistribution.LENGTH,
+          Thread.currentThread().getId());
+    }
+  }
+
+  @Benchmark
+  public Object readMostly(ThreadKeys keys) {
+    int index = keys.index++;
+    Integer key = keys.keys[index & KeyDistribution.MASK];
+    if (index % writeEvery == 0) {
+      return cache.put(new PayloadRecord(key, payload));
+    }
+    return cache.get(key);
+  }
+
+  /**
+   * A full collection with the cache populated, the worst case pause the cache's heap footprint
+   * contributes to.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @Warmup(iterations = 2, batchSize = 1)
+  @Measurement(iterations = 10, batchSize = 1)
+  public void fullCollection() {
+    System.gc();
+  }
+}
@@ -0,0 +1,21 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.CachedRecord;
+
+/**
+ * @author brent
+ * @since 8/10/18.
+ */
+public class PayloadRecord extends CachedRecord<Integer, String> {
+
+  private static final long serialVersionUID = -2317649381220157314L;
+
+  public PayloadRecord(Integer key, String payload) {
+    super(key, payload);
+  }
+
+  @Override
+  public String getValue() {
+    return super.getValue(String.class);
+  }
+}
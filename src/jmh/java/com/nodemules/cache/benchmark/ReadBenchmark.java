@@ -0,0 +1,97 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Cache#get} for keys that are cached and keys that are not.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadBenchmark {
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  @Param({"100000"})
+  int population;
+
+  /**
+   * 0 leaves the cache unbounded, so reads skip the eviction policy's read buffer.
+   */
+  @Param({"0", "100000"})
+  long maximumSize;
+
+  @Param({"false", "true"})
+  boolean recordStats;
+
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Cache.CacheBuilder<Integer, Integer> builder = Cache.builder();
+    if (maximumSize > 0) {
+      builder.maximumSize(maximumSize);
+    }
+    if (recordStats) {
+      builder.recordStats();
+    }
+    cache = builder.build();
+    for (int i = 0; i < population; i++) {
+      cache.put(new BenchmarkRecord(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+
+    Integer[] hits;
+    Integer[] misses;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp(ReadBenchmark benchmark) {
+      long seed = Thread.currentThread().getId();
+      hits = benchmark.distribution.keys(benchmark.population, KeyDistribution.LENGTH, seed);
+      misses = new Integer[KeyDistribution.LENGTH];
+      for (int i = 0; i < misses.length; i++) {
+        misses[i] = hits[i] + benchmark.population;
+      }
+    }
+  }
+
+  @Benchmark
+  public Integer getHit(ThreadKeys keys) {
+    return cache.get(keys.hits[keys.index++ & KeyDistribution.MASK]);
+  }
+
+  @Benchmark
+  public Integer getMiss(ThreadKeys keys) {
+    return cache.get(keys.misses[keys.index++ & KeyDistribution.MASK]);
+  }
+}
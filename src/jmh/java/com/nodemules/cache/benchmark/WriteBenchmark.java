@@ -0,0 +1,105 @@
+package com.nodemules.cache.benchmark;
+
+import com.nodemules.cache.core.Cache;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Cache#put} replacing existing keys, and {@link Cache#invalidate} paired with the put that
+ * restores the key so the population stays constant.
+ *
+ * @author brent
+ * @since 8/7/18.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WriteBenchmark {
+
+  @Param({"UNIFORM", "ZIPFIAN"})
+  KeyDistribution distribution;
+
+  @Param({"100000"})
+  int population;
+
+  /**
+   * 0 leaves the cache unbounded; otherwise half the population fits, so puts also evict.
+   */
+  @Param({"0", "50000"})
+  long maximumSize;
+
+  /**
+   * 0 leaves records without a TTL, so puts skip the timer wheel.
+   */
+  @Param({"0", "60000"})
+  long ttl;
+
+  /**
+   * Number of segments; 1 keeps the single eviction lock and buffers of an unsegmented cache.
+   */
+  @Param({"1", "16"})
+  int concurrencyLevel;
+
+  Cache<Integer, Integer> cache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Cache.CacheBuilder<Integer, Integer> builder = Cache.<Integer, Integer>builder()
+        .concurrencyLevel(concurrencyLevel);
+    if (maximumSize > 0) {
+      builder.maximumSize(maximumSize);
+    }
+    if (ttl > 0) {
+      builder.ttl(ttl);
+    }
+    cache = builder.build();
+    for (int i = 0; i < population; i++) {
+      cache.put(new BenchmarkRecord(i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    cache.close();
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadKeys {
+
+    Integer[] keys;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setUp(WriteBenchmark benchmark) {
+      keys = benchmark.distribution.keys(benchmark.population, KeyDistribution.LENGTH,
+          Thread.currentThread().getId());
+    }
+  }
+
+  @Benchmark
+  public Integer put(ThreadKeys keys) {
+    return cache.put(new BenchmarkRecord(keys.keys[keys.index++ & KeyDistribution.MASK]));
+  }
+
+  @Benchmark
+  public Integer invalidateAndPut(ThreadKeys keys) {
+    Integer key = keys.keys[keys.index++ & KeyDistribution.MASK];
+    cache.invalidate(key);
+    return cache.put(new BenchmarkRecord(key));
+  }
+}
@@ -0,0 +1,193 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A non-blocking view over a {@link Cache}. Misses are loaded on the cache's executor and every
+ * caller asking for a key while it is loading shares the same future. A load that fails is
+ * forgotten as soon as it completes, so the next request loads again, and a key that is
+ * invalidated while loading is not cached when the load finishes.
+ *
+ * @author brent
+ * @since 8/6/18.
+ */
+@Slf4j
+public final class AsyncCache<K extends Serializable, V> {
+
+  private final LoadingCache<K, V> cache;
+  private final Executor executor;
+  private final Map<K, CompletableFuture<V>> loads;
+
+  AsyncCache(LoadingCache<K, V> cache, Executor executor) {
+    this.cache = cache;
+    this.executor = executor;
+    this.loads = cache.loads;
+  }
+
+  /**
+   * The cached value, or the in-flight load of the key; null if it is neither cached nor loading.
+   */
+  public CompletableFuture<V> getIfPresent(K key) {
+    V value = cache.getIfPresent(key);
+    return value == null ? loads.get(key) : CompletableFuture.completedFuture(value);
+  }
+
+  /**
+   * The cached value, or the load of the key, starting one if none is in flight.
+   */
+  public CompletableFuture<V> get(K key) {
+    V value = cache.getIfPresent(key);
+    if (value != null) {
+      return CompletableFuture.completedFuture(value);
+    }
+    CompletableFuture<V> load = new CompletableFuture<>();
+    CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+    if (inFlight != null) {
+      return inFlight;
+    }
+    execute(() -> {
+      V loaded = cache.get(key, false);
+      complete(key, load, loaded == null ? cache.load(key) : loaded);
+    }, error -> fail(key, load, error));
+    return load;
+  }
+
+  /**
+   * The values of the given keys, loading every key that is neither cached nor already loading
+   * with a single call to {@link CacheLoader#loadAll(Iterable)}. Keys without a value are left out
+   * of the result, which fails if any load it waited on failed.
+   */
+  public CompletableFuture<Map<K, V>> getAll(Iterable<? extends K> keys) {
+    Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+    Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+    for (K key : keys) {
+      if (futures.containsKey(key)) {
+        continue;
+      }
+      V value = cache.getIfPresent(key);
+      if (value != null) {
+        futures.put(key, CompletableFuture.completedFuture(value));
+        continue;
+      }
+      CompletableFuture<V> load = new CompletableFuture<>();
+      CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+      if (inFlight == null) {
+        claimed.put(key, load);
+        futures.put(key, load);
+      } else {
+        futures.put(key, inFlight);
+      }
+    }
+    if (!claimed.isEmpty()) {
+      loadAll(claimed);
+    }
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+        .thenApply(ignored -> {
+          Map<K, V> values = new LinkedHashMap<>();
+          futures.forEach((key, future) -> {
+            V value = future.join();
+            if (value != null) {
+              values.put(key, value);
+            }
+          });
+          return values;
+        });
+  }
+
+  /**
+   * Caches the result of the given future once it completes successfully, sharing it with callers
+   * asking for the key in the meantime. The result is written to the cache's
+   * {@link CacheWriter}, if it has one, when it is cached; a value the writer fails is not cached.
+   */
+  public void put(K key, CompletableFuture<V> value) {
+    loads.put(key, value);
+    value.whenComplete((put, error) -> {
+      try {
+        if (error == null && put != null && loads.get(key) == value) {
+          cache.put(key, put);
+        }
+      } catch (CacheWriterException e) {
+        log.warn("Failed to write {}", key, e);
+      } finally {
+        loads.remove(key, value);
+      }
+    });
+  }
+
+  public void invalidate(K key) {
+    cache.invalidate(key);
+  }
+
+  /**
+   * The cache behind this view.
+   */
+  public LoadingCache<K, V> synchronous() {
+    return cache;
+  }
+
+  private void loadAll(Map<K, CompletableFuture<V>> claimed) {
+    execute(() -> {
+      List<K> missing = new ArrayList<>(claimed.size());
+      claimed.forEach((key, load) -> {
+        V value = cache.get(key, false);
+        if (value == null) {
+          missing.add(key);
+        } else {
+          complete(key, load, value);
+        }
+      });
+      Map<? super K, V> loaded = missing.isEmpty()
+          ? new LinkedHashMap<>() : cache.loadAll(missing);
+      for (K key : missing) {
+        complete(key, claimed.get(key), loaded.get(key));
+      }
+    }, error -> claimed.forEach((key, load) -> fail(key, load, error)));
+  }
+
+  private void complete(K key, CompletableFuture<V> load, V value) {
+    if (value != null) {
+      cache.putLoaded(key, value, load);
+    }
+    loads.remove(key, load);
+    load.complete(value);
+  }
+
+  /**
+   * Forgets a failed load before failing its future, so callers reacting to the failure load
+   * again instead of being handed the same failed future.
+   */
+  private void fail(K key, CompletableFuture<V> load, Throwable error) {
+    loads.remove(key, load);
+    load.completeExceptionally(error);
+  }
+
+  private void execute(LoadTask task, Consumer<Throwable> onError) {
+    try {
+      executor.execute(() -> {
+        try {
+          task.run();
+        } catch (Throwable e) {
+          log.debug("Load failed", e);
+          onError.accept(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      onError.accept(e);
+    }
+  }
+
+  @FunctionalInterface
+  private interface LoadTask {
+
+    void run() throws Exception;
+  }
+}
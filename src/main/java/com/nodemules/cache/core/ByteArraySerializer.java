@@ -0,0 +1,22 @@
+package com.nodemules.cache.core;
+
+/**
+ * Copies {@code byte[]} values in and out, so a {@link StorageMode#VALUE} cache keeps its own
+ * payloads however callers change the arrays they put or get.
+ *
+ * @author brent
+ * @since 8/11/18.
+ */
+enum ByteArraySerializer implements Serializer<byte[]> {
+  INSTANCE;
+
+  @Override
+  public byte[] serialize(byte[] value) {
+    return value.clone();
+  }
+
+  @Override
+  public byte[] deserialize(byte[] bytes) {
+    return bytes.clone();
+  }
+}
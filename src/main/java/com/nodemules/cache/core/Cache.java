@@ -1,11 +1,29 @@
 package com.nodemules.cache.core;
 
+import com.nodemules.cache.core.CacheEventListener.EventType;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.io.IOException;
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -13,130 +31,1265 @@ import lombok.extern.slf4j.Slf4j;
  * @since 7/28/18.
  */
 @Slf4j
-public abstract class Cache<K extends Serializable, V> {
+public abstract class Cache<K extends Serializable, V> implements AutoCloseable {
 
-  private static final Object LOCK = new Object();
   private static final long DEFAULT_EVICTION_SLEEP_TIME = 5000L;
+  private static final long INITIAL_WEIGHTED_POLICY_SIZE = 64L;
+  private static final long NO_REFRESH = Long.MAX_VALUE;
+  private static final EvictionProtocol DEFAULT_EVICTION_PROTOCOL = Cache::runMaintenance;
+  private static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+  private static final long DEFAULT_WRITE_DELAY = 1000L;
+  private static final int DEFAULT_WRITE_QUEUE_CAPACITY = 10_000;
+  private static final int DEFAULT_INVALIDATION_BATCH_SIZE = 100;
+  private static final long DEFAULT_INVALIDATION_DELAY = 10L;
 
   private final Map<K, CachedRecord<K, V>> map = new ConcurrentHashMap<>();
+  /**
+   * In-flight loads by key, shared by every way of loading a key; putting or invalidating a key
+   * takes its load out, so the load's value is not cached over the change.
+   */
+  final Map<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
   private final List<RemovalListener<K, V>> removalListeners = new ArrayList<>();
-  private final Long ttl;
-  private final boolean refreshTtl;
+  private final RemovalDispatcher<K, V> removalDispatcher;
+  /**
+   * The TTL of records not constructed with one of their own, or null if they never expire.
+   */
+  private final RecordTtl ttl;
+  private final Expiry<K, V> expiry;
+  private final StorageMode storageMode;
+  private final Copier<V> copier;
+  /**
+   * Whether values are kept as JSON, which can only be read back as a type known to the record.
+   */
+  private final boolean json;
+  private final OffHeapStore offHeapStore;
+  private final CacheWriter<K, V> writer;
+  private final InvalidationBus<K> invalidationBus;
+  private final InvalidationPublisher<K> invalidationPublisher;
+  private final Long maximumSize;
+  private final Long maximumWeight;
+  private final Weigher<K, V> weigher;
+  private final boolean bounded;
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final Ticker ticker;
+  private final RecordContext<V> context;
+  private final long refreshAfterWrite;
+  private final StatsCounter statsCounter;
+  private final CacheEventListener<K> eventListener;
+  private final JmxCacheStats jmxStats;
   private final Long evictionSleepTime;
   private final EvictionProtocol evictionProtocol;
-  private final EvictionProtocol defaultEvictionProtocol = sleepTime -> {
-    try {
-      log.trace("Running cleanup thread with average cleanup time {}ms", sleepTime);
-      while (true) {
-        Thread.sleep(sleepTime);
-        log.trace("Starting cleanup");
-        Set<K> keys = map.keySet();
-        int i = 0;
-        for (K key : keys) {
-          ICacheable<K, V> entry = map.get(key);
-          if (entry.isExpired()) {
-//            log.trace("Record created at -> {}", entry.getCreatedTime());
-//            log.trace("Record expired at -> {}", entry.getExpireTime());
-            remove(entry);
-            i++;
-          }
-        }
-        log.trace("Ending cleanup: {} records removed this cycle", i);
-        log.trace("Cleanup sleeping for {}ms", sleepTime);
-      }
-
-    } catch (InterruptedException e) {
-    }
-  };
+  private final CacheScheduler.Registration registration;
+  private final CompletableFuture<Long> warmed;
 
   protected Cache() {
     throw new AssertionError("Use Cache.CacheBuilder()");
   }
 
-  private Cache(Long ttl, boolean refreshTtlOnAccess, Long evictionSleepTime,
-      EvictionProtocol evictionProtocol, boolean enableEviction,
-      List<RemovalListener<K, V>> removalListeners) {
+  Cache(CacheBuilder<K, V> builder) {
     log.trace("Cache()");
-    this.ttl = ttl;
-    this.refreshTtl = refreshTtlOnAccess;
-    this.removalListeners.addAll(removalListeners);
-    if (evictionSleepTime == null) {
+    this.ttl = builder.ttl == null
+        ? null : new RecordTtl(builder.ttl, builder.refreshTtlOnAccess);
+    if (builder.expiry != null && (builder.ttl != null || builder.refreshTtlOnAccess)) {
+      throw new IllegalArgumentException("Set either an Expiry or a ttl, not both");
+    }
+    this.expiry = builder.expiry;
+    this.storageMode = builder.storageMode;
+    this.copier = builder.copier;
+    this.json = builder.keepsJson();
+    this.removalListeners.addAll(builder.removalListeners);
+    this.offHeapStore = builder.offHeapCapacity == null
+        ? null : new OffHeapStore(builder.offHeapCapacity, builder.offHeapFile);
+    this.removalDispatcher = new RemovalDispatcher<>(removalListeners, builder.removalExecutor,
+        offHeapStore != null);
+    this.maximumSize = builder.maximumSize;
+    this.maximumWeight = builder.maximumWeight == null
+        ? builder.offHeapCapacity : builder.maximumWeight;
+    this.weigher = builder.weigher;
+    CacheScheduler scheduler = builder.scheduler == null
+        ? CacheScheduler.shared() : builder.scheduler;
+    if (builder.writer == null || builder.writeMode == WriteMode.WRITE_THROUGH) {
+      this.writer = builder.writer;
+    } else {
+      this.writer = new WriteBehindWriter<>(builder.writer, builder.writeBatchSize,
+          builder.writeDelay, builder.writeQueueCapacity, scheduler, builder.loadExecutor());
+    }
+    this.invalidationBus = builder.invalidationBus;
+    if (invalidationBus == null) {
+      this.invalidationPublisher = null;
+    } else {
+      this.invalidationPublisher = new InvalidationPublisher<>(invalidationBus,
+          builder.invalidationBatchSize, builder.invalidationDelay, scheduler);
+      invalidationBus.subscribe(new InvalidationListener<>(this, invalidationBus));
+    }
+    this.ticker = builder.ticker;
+    this.context = new RecordContext<>(ticker, builder.serializer);
+    this.eventListener = builder.eventListener;
+    this.statsCounter = builder.recordStats
+        ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+    this.refreshAfterWrite = builder.refreshAfterWrite == null
+        ? NO_REFRESH : TimeUnit.MILLISECONDS.toNanos(builder.refreshAfterWrite);
+    this.bounded = maximumSize != null || maximumWeight != null;
+    int concurrencyLevel = builder.concurrencyLevel <= 1
+        ? 1 : Integer.highestOneBit(builder.concurrencyLevel - 1) << 1;
+    for (Long maximum : new Long[]{maximumSize, maximumWeight}) {
+      if (maximum != null) {
+        concurrencyLevel = Math.min(concurrencyLevel,
+            Integer.highestOneBit((int) Math.max(1L, Math.min(maximum, 1 << 16))));
+      }
+    }
+    if (bounded && concurrencyLevel > 1 && builder.evictionPolicy != null) {
+      throw new IllegalArgumentException("A segmented cache needs an EvictionPolicy per segment;"
+          + " set evictionPolicy(Supplier) instead");
+    }
+    this.segmentMask = concurrencyLevel - 1;
+    this.segments = newSegments(concurrencyLevel, builder);
+    if (builder.evictionSleepTime == null) {
       this.evictionSleepTime = DEFAULT_EVICTION_SLEEP_TIME;
     } else {
-      this.evictionSleepTime = evictionSleepTime;
+      this.evictionSleepTime = builder.evictionSleepTime;
     }
-    if (evictionProtocol == null) {
-      this.evictionProtocol = defaultEvictionProtocol;
+    if (builder.evictionProtocol == null) {
+      this.evictionProtocol = DEFAULT_EVICTION_PROTOCOL;
     } else {
-      this.evictionProtocol = evictionProtocol;
+      this.evictionProtocol = builder.evictionProtocol;
     }
-    Thread eviction = new Thread(() -> this.evictionProtocol.evict(this.evictionSleepTime));
-    eviction.setPriority(Thread.MIN_PRIORITY);
-    eviction.setDaemon(true);
-    log.trace("Starting cleanup thread");
-    if (enableEviction) {
-      eviction.start();
+    if (builder.implicitEvicition || builder.enableEviction) {
+      log.trace("Registering cleanup every {}ms", evictionSleepTime);
+      this.registration = scheduler.register(this, Cache::tick, evictionSleepTime);
+    } else {
+      this.registration = null;
     }
+    this.jmxStats = builder.jmxName == null ? null : JmxCacheStats.register(this, builder.jmxName);
+    this.warmed = builder.warmFrom == null
+        ? CompletableFuture.completedFuture(0L)
+        : CacheSnapshot.read(builder.warmFrom, builder.loadExecutor(), this);
   }
 
   public static <K extends Serializable, V> Cache.CacheBuilder<K, V> builder() {
     return Cache.CacheBuilder.builder();
   }
 
+  @SuppressWarnings("unchecked")
+  private Segment[] newSegments(int count, CacheBuilder<K, V> builder) {
+    Segment[] segments = (Segment[]) new Cache<?, ?>.Segment[count];
+    for (int i = 0; i < count; i++) {
+      EvictionPolicy<K> evictionPolicy = null;
+      if (bounded) {
+        if (builder.evictionPolicy != null) {
+          evictionPolicy = builder.evictionPolicy;
+        } else if (builder.evictionPolicies != null) {
+          evictionPolicy = builder.evictionPolicies.get();
+        } else {
+          evictionPolicy = EvictionPolicy.windowTinyLfu();
+        }
+      }
+      segments[i] = new Segment(evictionPolicy, share(maximumSize, i, count),
+          share(maximumWeight, i, count));
+    }
+    return segments;
+  }
+
+  /**
+   * The part of a bound given to one of the segments, spreading the remainder over the first.
+   */
+  private static Long share(Long maximum, int segment, int segments) {
+    return maximum == null
+        ? null : maximum / segments + (segment < maximum % segments ? 1 : 0);
+  }
+
+  private Segment segmentFor(Object key) {
+    return segments[segmentIndex(key)];
+  }
+
+  private int segmentIndex(Object key) {
+    if (segmentMask == 0) {
+      return 0;
+    }
+    int hash = key.hashCode() * 0x9e3779b9;
+    return (hash ^ (hash >>> 16)) & segmentMask;
+  }
+
+  /**
+   * Removes the record only if it is still the one mapped to its key, so that concurrent removals
+   * of the same record (e.g. an expired read racing the eviction thread) notify listeners once.
+   */
+  boolean remove(CachedRecord<K, V> record, RemovalCause cause) {
+    if (record == null || !map.remove(record.getId(), record)) {
+      return false;
+    }
+    segmentFor(record.getId()).afterRemove(record);
+    notifyRemoval(record, cause);
+    return true;
+  }
+
+  /**
+   * Completes the removal of records the caller has already removed from the map, with one
+   * buffered write for the timer wheel and eviction policy and one notification per listener.
+   */
+  private void removed(List<CachedRecord<K, V>> records, RemovalCause cause) {
+    if (records.isEmpty()) {
+      return;
+    }
+    if (segments.length == 1) {
+      segments[0].afterRemoveAll(records);
+    } else {
+      List<List<CachedRecord<K, V>>> bySegment = new ArrayList<>(segments.length);
+      for (int i = 0; i < segments.length; i++) {
+        bySegment.add(new ArrayList<>());
+      }
+      for (CachedRecord<K, V> record : records) {
+        bySegment.get(segmentIndex(record.getId())).add(record);
+      }
+      for (int i = 0; i < segments.length; i++) {
+        if (!bySegment.get(i).isEmpty()) {
+          segments[i].afterRemoveAll(bySegment.get(i));
+        }
+      }
+    }
+    notifyRemovals(records, cause);
+  }
+
+  /**
+   * Frees a record's off-heap value once the record has left the map and its listeners have been
+   * notified; a reader still holding the record sees a miss.
+   */
+  private void release(CachedRecord<K, V> record) {
+    if (offHeapStore != null) {
+      record.releaseOffHeap();
+    }
+  }
+
+  /**
+   * Frees the off-heap value of a record that a put has replaced, copying it back onto the heap
+   * first, as for a removal delivered to listeners, so a reader that got the record before the
+   * put still reads its value rather than a miss once the chunk is reused.
+   */
+  private void retire(CachedRecord<K, V> previous) {
+    if (offHeapStore != null) {
+      previous.moveOnHeap();
+    }
+  }
+
+  /**
+   * Records the removal and hands it to the removal listeners, releasing the record once they
+   * have seen it.
+   */
+  private void notifyRemoval(CachedRecord<K, V> record, RemovalCause cause) {
+    statsCounter.recordRemoval(cause);
+    publish(EventType.REMOVAL, record.getId());
+    if (removalListeners.isEmpty()) {
+      release(record);
+    } else {
+      removalDispatcher.dispatch(new RemovalEvent<>(record.getId(), record, cause));
+    }
+  }
+
+  /**
+   * Records a batch of removals with the same cause and hands them to the removal listeners as
+   * one batch.
+   */
+  private void notifyRemovals(List<CachedRecord<K, V>> records, RemovalCause cause) {
+    statsCounter.recordRemovals(cause, records.size());
+    if (eventListener != null) {
+      records.forEach(record -> publish(EventType.REMOVAL, record.getId()));
+    }
+    if (removalListeners.isEmpty()) {
+      records.forEach(this::release);
+      return;
+    }
+    List<RemovalEvent<K, V>> events = new ArrayList<>(records.size());
+    for (CachedRecord<K, V> record : records) {
+      events.add(new RemovalEvent<>(record.getId(), record, cause));
+    }
+    removalDispatcher.dispatch(events);
+  }
+
+  /**
+   * Performs any pending maintenance (expiring records that have come due, replaying buffered
+   * reads and writes to the eviction policy and evicting down to the configured bounds) on the
+   * calling thread.
+   */
+  public void cleanUp() {
+    runMaintenance();
+  }
+
+  /**
+   * Stops this cache's periodic eviction. The cache remains usable; expired records are still
+   * removed when read and by {@link #cleanUp()}. A {@link WriteMode#WRITE_BEHIND} cache first
+   * waits for its queued writes to be flushed, and writes through from then on. A cache with an
+   * {@link InvalidationBus} publishes the invalidations still queued and closes the bus.
+   */
+  @Override
+  public void close() {
+    if (writer instanceof WriteBehindWriter) {
+      ((WriteBehindWriter<K, V>) writer).close();
+    }
+    if (invalidationPublisher != null) {
+      invalidationPublisher.close();
+      invalidationBus.close();
+    }
+    if (registration != null) {
+      registration.close();
+    }
+    if (jmxStats != null) {
+      jmxStats.close();
+    }
+    if (offHeapStore != null) {
+      offHeapStore.close();
+    }
+  }
+
+  /**
+   * A snapshot of this cache's statistics; all zero unless the cache was built with
+   * {@link CacheBuilder#recordStats()}.
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * Writes the entries that have not expired to the given file, from which a cache built with
+   * {@link CacheBuilder#warmFrom(Path)} restores them with what is left of their TTLs. Values are
+   * written in their serialized form and keys and records with Java serialization, so both must
+   * still be readable by the application that warms from the file. Entries put or removed while
+   * the snapshot is being written may or may not be included.
+   *
+   * @return the number of entries written
+   */
+  public long snapshotTo(Path path) throws IOException {
+    return CacheSnapshot.write(map.values(), ticker.read(), path);
+  }
+
+  /**
+   * A future completed with the number of entries restored once warming from the
+   * {@link CacheBuilder#warmFrom(Path)} snapshot has finished, or exceptionally if the snapshot
+   * could not be read; already completed with 0 for a cache that does not warm.
+   */
+  public CompletableFuture<Long> warmed() {
+    return warmed.thenApply(restored -> restored);
+  }
+
+  StatsCounter statsCounter() {
+    return statsCounter;
+  }
+
+  int tick() {
+    return evictionProtocol.evict(this);
+  }
+
+  private int runMaintenance() {
+    log.trace("Starting cleanup");
+    int removed = 0;
+    for (Segment segment : segments) {
+      removed += segment.runMaintenance();
+    }
+    log.trace("Ending cleanup: {} records removed this cycle", removed);
+    return removed;
+  }
 
-  private void remove(ICacheable<K, V> record) {
-    if (record == null) {
-      log.trace("No record was found to be removed");
+  /**
+   * Notifies the removals made by a segment's maintenance, once its eviction lock is released.
+   */
+  private void notifyMaintenance(List<Map.Entry<CachedRecord<K, V>, RemovalCause>> removed) {
+    if (removed.isEmpty()) {
       return;
     }
-    log.trace("Removing record -> {}", record.getId());
-    for (RemovalListener<K, V> removalListener : removalListeners) {
-      removalListener.onRemoval(new RemovalEvent<>(record.getId(), record.getValue()));
+    List<RemovalEvent<K, V>> events = new ArrayList<>(removed.size());
+    for (Map.Entry<CachedRecord<K, V>, RemovalCause> removal : removed) {
+      CachedRecord<K, V> record = removal.getKey();
+      statsCounter.recordRemoval(removal.getValue());
+      publish(EventType.REMOVAL, record.getId());
+      if (removalListeners.isEmpty()) {
+        release(record);
+      } else {
+        events.add(new RemovalEvent<>(record.getId(), record, removal.getValue()));
+      }
+    }
+    if (!events.isEmpty()) {
+      removalDispatcher.dispatch(events);
     }
-    map.remove(record.getId());
   }
 
+  /**
+   * Removes the key, deleting it from the {@link CacheWriter} if there is one.
+   *
+   * @throws CacheWriterException if writing through and the writer failed
+   */
   public void invalidate(K key) {
-    remove(map.get(key));
+    loads.remove(key);
+    if (writer != null) {
+      try {
+        writer.delete(key);
+      } catch (CacheWriterException e) {
+        throw e;
+      } catch (Exception e) {
+        throw writerFailure("Failed to delete " + key, e);
+      }
+    }
+    remove(map.get(key), RemovalCause.EXPLICIT);
+    if (invalidationPublisher != null) {
+      invalidationPublisher.publish(key);
+    }
+  }
+
+  /**
+   * Removes the keys, deleting them from the {@link CacheWriter} in one batch if there is one,
+   * and notifies each removal listener of the batch at once.
+   *
+   * @throws CacheWriterException if writing through and the writer failed
+   */
+  public void invalidateAll(Iterable<? extends K> keys) {
+    List<K> invalidated = new ArrayList<>();
+    keys.forEach(invalidated::add);
+    deleteAll(invalidated);
+    invalidateLocally(invalidated);
+    if (invalidationPublisher != null) {
+      invalidationPublisher.publishAll(invalidated);
+    }
+  }
+
+  /**
+   * Removes the keys from this cache only, as for a batch of invalidations from another node.
+   */
+  private void invalidateLocally(Collection<K> keys) {
+    List<CachedRecord<K, V>> removed = new ArrayList<>(keys.size());
+    for (K key : keys) {
+      loads.remove(key);
+      CachedRecord<K, V> record = map.get(key);
+      if (record != null && map.remove(key, record)) {
+        removed.add(record);
+      }
+    }
+    removed(removed, RemovalCause.EXPLICIT);
+  }
+
+  /**
+   * Removes every entry, as {@link #invalidateAll(Iterable)} does for the keys present. Entries
+   * put concurrently may or may not be removed.
+   *
+   * @throws CacheWriterException if writing through and the writer failed
+   */
+  public void invalidateAll() {
+    loads.clear();
+    if (writer != null) {
+      deleteAll(new ArrayList<>(map.keySet()));
+    }
+    List<CachedRecord<K, V>> removed = new ArrayList<>(map.size());
+    for (CachedRecord<K, V> record : map.values()) {
+      if (map.remove(record.getId(), record)) {
+        removed.add(record);
+      }
+    }
+    removed(removed, RemovalCause.EXPLICIT);
+    if (invalidationPublisher != null) {
+      List<K> keys = new ArrayList<>(removed.size());
+      removed.forEach(record -> keys.add(record.getId()));
+      invalidationPublisher.publishAll(keys);
+    }
+  }
+
+  private void deleteAll(List<K> keys) {
+    if (writer == null || keys.isEmpty()) {
+      return;
+    }
+    try {
+      writer.deleteAll(keys);
+    } catch (CacheWriterException e) {
+      throw e;
+    } catch (Exception e) {
+      throw writerFailure("Failed to delete " + keys.size() + " keys", e);
+    }
+  }
+
+  /**
+   * Wraps a failure of the writer, keeping the interrupt status of a caller that was interrupted
+   * while waiting for room to write behind.
+   */
+  private static CacheWriterException writerFailure(String message, Exception e) {
+    if (e instanceof InterruptedException) {
+      Thread.currentThread().interrupt();
+    }
+    return new CacheWriterException(message, e);
+  }
+
+  public long size() {
+    return map.size();
   }
 
+  /**
+   * Puts the record, writing its value to the {@link CacheWriter} if there is one.
+   *
+   * @throws CacheWriterException if writing through and the writer failed
+   */
   public K put(CachedRecord<K, V> entry) {
-    log.trace("Entry ttl -> {}", entry.getTtl());
-    if (ttl != null && entry.getTtl() == null) {
-      entry.setExpireTime(ttl, refreshTtl);
+    if (writer != null) {
+      try {
+        writer.write(entry.getId(), entry.getValue());
+      } catch (CacheWriterException e) {
+        throw e;
+      } catch (Exception e) {
+        throw writerFailure("Failed to write " + entry.getId(), e);
+      }
+    }
+    loads.remove(entry.getId());
+    K key = putLoaded(entry);
+    if (invalidationPublisher != null) {
+      invalidationPublisher.publish(key);
+    }
+    return key;
+  }
+
+  /**
+   * Puts the value without a {@link CachedRecord} subclass of its own, as
+   * {@link #put(CachedRecord)} does for a record holding it.
+   *
+   * @throws IllegalStateException if the cache keeps values serialized without a
+   *     {@link Serializer}
+   * @throws CacheWriterException if writing through and the writer failed
+   */
+  public K put(K key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Cannot cache a null value for " + key);
     }
-    map.put(entry.getId(), entry);
+    return put(valueRecord(key, value));
+  }
+
+  /**
+   * Wraps a value the cache was handed without a record. Such a record only knows the value's
+   * runtime class, which loses its type arguments, so it cannot be read back from JSON; a cache
+   * keeping values serialized needs a {@link Serializer} for it.
+   */
+  CachedRecord<K, V> valueRecord(K key, V value) {
+    if (json) {
+      throw new IllegalStateException("Caching a value without a CachedRecord of its own needs a"
+          + " serializer(Serializer) when values are kept serialized -> " + key);
+    }
+    return new ValueRecord<>(key, value);
+  }
+
+  /**
+   * Puts a record whose value came from the backing store, without writing it back.
+   */
+  K putLoaded(CachedRecord<K, V> entry) {
+    initialize(entry);
+    store(entry);
+    afterPut(entry, map.put(entry.getId(), entry));
     return entry.getId();
   }
 
+  /**
+   * Replaces the record with one holding its refreshed value, unless the key has been put,
+   * invalidated or evicted since the record was read; the refreshed record is then discarded, as
+   * its value may be older than the one that replaced the record.
+   *
+   * @return whether the refreshed record was cached
+   */
+  boolean replaceLoaded(CachedRecord<K, V> record, CachedRecord<K, V> refreshed) {
+    initialize(refreshed);
+    store(refreshed);
+    if (!map.replace(record.getId(), record, refreshed)) {
+      release(refreshed);
+      return false;
+    }
+    afterPut(refreshed, record);
+    return true;
+  }
+
+  private void afterPut(CachedRecord<K, V> entry, CachedRecord<K, V> previous) {
+    if (previous != null && previous != entry) {
+      retire(previous);
+    }
+    statsCounter.recordPut();
+    publish(EventType.PUT, entry.getId());
+    Segment segment = segmentFor(entry.getId());
+    Runnable task = segment.afterPut(entry, previous);
+    if (task != null) {
+      segment.afterWrite(task);
+    }
+  }
+
+  /**
+   * Puts a value loaded for the key, unless the key was put or invalidated while the load was in
+   * flight, which takes the load out of {@link #loads}; the value may then be older than the
+   * store's. Rechecks once the value is cached, in case that happened while it was being put.
+   */
+  void putLoaded(K key, V value, CompletableFuture<V> load) {
+    if (loads.get(key) != load) {
+      log.trace("Discarding load of a key changed while loading -> {}", key);
+      return;
+    }
+    CachedRecord<K, V> record = valueRecord(key, value);
+    putLoaded(record);
+    if (loads.get(key) != load) {
+      remove(record, RemovalCause.EXPLICIT);
+    }
+  }
+
+  /**
+   * Puts the records, writing their values to the {@link CacheWriter} in one batch if there is
+   * one, and replaying them to the timer wheel and eviction policy in one buffered write.
+   *
+   * @throws CacheWriterException if writing through and the writer failed, in which case none of
+   *     the records are put
+   */
+  public void putAll(Collection<? extends CachedRecord<K, V>> entries) {
+    if (entries.isEmpty()) {
+      return;
+    }
+    if (writer != null) {
+      Map<K, V> values = new LinkedHashMap<>();
+      for (CachedRecord<K, V> entry : entries) {
+        values.put(entry.getId(), entry.getValue());
+      }
+      try {
+        writer.writeAll(values);
+      } catch (CacheWriterException e) {
+        throw e;
+      } catch (Exception e) {
+        throw writerFailure("Failed to write " + values.size() + " values", e);
+      }
+    }
+    List<List<Runnable>> tasks = new ArrayList<>(segments.length);
+    for (int i = 0; i < segments.length; i++) {
+      tasks.add(new ArrayList<>());
+    }
+    for (CachedRecord<K, V> entry : entries) {
+      loads.remove(entry.getId());
+      initialize(entry);
+      store(entry);
+      CachedRecord<K, V> previous = map.put(entry.getId(), entry);
+      if (previous != null && previous != entry) {
+        retire(previous);
+      }
+      publish(EventType.PUT, entry.getId());
+      int index = segmentIndex(entry.getId());
+      Runnable task = segments[index].afterPut(entry, previous);
+      if (task != null) {
+        tasks.get(index).add(task);
+      }
+    }
+    statsCounter.recordPuts(entries.size());
+    for (int i = 0; i < segments.length; i++) {
+      List<Runnable> segmentTasks = tasks.get(i);
+      if (!segmentTasks.isEmpty()) {
+        segments[i].afterWrite(() -> segmentTasks.forEach(Runnable::run));
+      }
+    }
+    if (invalidationPublisher != null) {
+      List<K> keys = new ArrayList<>(entries.size());
+      entries.forEach(entry -> keys.add(entry.getId()));
+      invalidationPublisher.publishAll(keys);
+    }
+  }
+
+  /**
+   * Puts a record read back from a snapshot, expiring it after what was left of its TTL, unless
+   * the key has been put since the cache was built.
+   *
+   * @return false if the key was already present
+   */
+  boolean restore(CachedRecord<K, V> entry, long expiresAfter) {
+    if (expiresAfter == CachedRecord.NO_TTL) {
+      initialize(entry);
+    } else {
+      entry.setContext(context);
+      long now = ticker.read();
+      entry.initialize(now, now + expiresAfter);
+    }
+    store(entry);
+    if (map.putIfAbsent(entry.getId(), entry) != null) {
+      release(entry);
+      return false;
+    }
+    statsCounter.recordPut();
+    publish(EventType.PUT, entry.getId());
+    Segment segment = segmentFor(entry.getId());
+    Runnable task = segment.afterPut(entry, null);
+    if (task != null) {
+      segment.afterWrite(task);
+    }
+    return true;
+  }
+
+  /**
+   * Starts the record's TTL or, with an {@link Expiry}, expires it after the duration the expiry
+   * gives an entry that is created, or one that updates the entry currently mapped to its key.
+   */
+  private void initialize(CachedRecord<K, V> entry) {
+    entry.setContext(context);
+    long now = ticker.read();
+    if (expiry == null) {
+      RecordTtl ttl = ttlOf(entry);
+      entry.initialize(now, ttl == null ? CachedRecord.NO_EXPIRY : now + ttl.getNanos());
+      return;
+    }
+    CachedRecord<K, V> current = map.get(entry.getId());
+    long duration = current == null || current.isExpired(now)
+        ? expiry.expireAfterCreate(entry.getId(), entry.getValue())
+        : expiry.expireAfterUpdate(entry.getId(), entry.getValue(),
+            durationOf(current.getExpires(), now));
+    entry.initialize(now, expiresAt(now, duration));
+  }
+
+  /**
+   * The TTL the record expires after: its own if it was constructed with one, otherwise this
+   * cache's. Null with an {@link Expiry}, which decides expiry instead.
+   */
+  private RecordTtl ttlOf(CachedRecord<K, V> entry) {
+    if (expiry != null) {
+      return null;
+    }
+    RecordTtl own = entry.getTtl();
+    return own == null ? ttl : own;
+  }
+
+  /**
+   * Applies the {@link Expiry}'s duration after a read of the record. A record whose expiry is
+   * brought forward is rescheduled on the timer wheel; one whose expiry is pushed back is
+   * rescheduled when its old bucket comes due, as with a TTL refreshed on access.
+   */
+  private void expireAfterRead(CachedRecord<K, V> entry, V value, long now) {
+    long current = entry.getExpires();
+    long currentDuration = durationOf(current, now);
+    long duration = expiry.expireAfterRead(entry.getId(), value, currentDuration);
+    if (duration == currentDuration) {
+      return;
+    }
+    long expires = expiresAt(now, duration);
+    if (entry.expireAt(current, expires) && expires < current) {
+      Segment segment = segmentFor(entry.getId());
+      segment.afterWrite(() -> segment.reschedule(entry));
+    }
+  }
+
+  /**
+   * The milliseconds left until the given expiry, or {@link Expiry#ETERNAL}.
+   */
+  private static long durationOf(long expires, long now) {
+    return expires == CachedRecord.NO_EXPIRY
+        ? Expiry.ETERNAL : TimeUnit.NANOSECONDS.toMillis(Math.max(0L, expires - now));
+  }
+
+  private static long expiresAt(long now, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("Expiry returned a negative duration -> " + duration);
+    }
+    long nanos = TimeUnit.MILLISECONDS.toNanos(duration);
+    long expires = now + nanos;
+    return duration == Expiry.ETERNAL || expires < now ? CachedRecord.NO_EXPIRY : expires;
+  }
+
+  /**
+   * Weighs the record and puts its value into the form the cache keeps it in.
+   */
+  private void store(CachedRecord<K, V> entry) {
+    if (maximumWeight != null && weigher != null) {
+      entry.setWeight(weigh(entry));
+    }
+    if (offHeapStore != null) {
+      int size = entry.moveOffHeap(offHeapStore);
+      if (weigher == null) {
+        entry.setWeight(size);
+      }
+    } else {
+      if (maximumWeight != null && weigher == null) {
+        entry.setWeight(entry.serializedLength());
+      }
+      if (storageMode == StorageMode.VALUE) {
+        if (copier == null) {
+          entry.snapshot();
+        } else {
+          entry.copy(copier);
+        }
+      } else {
+        entry.inflate();
+      }
+    }
+  }
+
+  private int weigh(CachedRecord<K, V> entry) {
+    int weight = weigher.weigh(entry.getId(), entry.getValue());
+    if (weight < 0) {
+      throw new IllegalArgumentException("Weigher returned a negative weight -> " + weight);
+    }
+    return weight;
+  }
+
   public V get(K key) {
-    synchronized (LOCK) {
-      log.trace("Getting entry from cache");
+    return get(key, true);
+  }
+
+  /**
+   * Returns the cached value, computing it with the given loader on a miss. Concurrent misses
+   * for the same key wait on a single in-flight load instead of each calling a loader. A value
+   * loaded this way is neither written to the {@link CacheWriter} nor published on the
+   * {@link InvalidationBus}, as for a {@link LoadingCache}.
+   *
+   * @throws CacheLoaderException if the loader failed
+   */
+  public V get(K key, CacheLoader<? super K, V> loader) {
+    V value = get(key, true);
+    if (value != null) {
+      return value;
+    }
+    CompletableFuture<V> load = new CompletableFuture<>();
+    CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+    if (inFlight != null) {
+      return join(key, inFlight);
+    }
+    try {
+      value = get(key, false);
+      if (value == null) {
+        value = load(key, loader);
+        if (value != null) {
+          putLoaded(key, value, load);
+        }
+      }
+      load.complete(value);
+      return value;
+    } catch (Exception e) {
+      load.completeExceptionally(e);
+      throw new CacheLoaderException("Failed to load " + key, e);
+    } finally {
+      loads.remove(key, load);
+    }
+  }
+
+  /**
+   * Calls the loader, recording the outcome and duration in the cache's statistics.
+   */
+  V load(K key, CacheLoader<? super K, V> loader) throws Exception {
+    long start = System.nanoTime();
+    try {
+      V value = loader.load(key);
+      statsCounter.recordLoadSuccess(System.nanoTime() - start);
+      return value;
+    } catch (Exception e) {
+      statsCounter.recordLoadFailure(System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  V join(K key, CompletableFuture<V> load) {
+    try {
+      return load.join();
+    } catch (CompletionException e) {
+      throw new CacheLoaderException("Failed to load " + key, e.getCause());
+    }
+  }
+
+  /**
+   * Returns the values of the keys that are cached, reading the time once for the whole batch,
+   * recording the batch in the statistics at once and removing the entries found expired together.
+   */
+  public Map<K, V> getAll(Iterable<? extends K> keys) {
+    Map<K, V> values = new LinkedHashMap<>();
+    List<CachedRecord<K, V>> expired = new ArrayList<>();
+    long now = ticker.read();
+    int hits = 0;
+    int misses = 0;
+    int expiredReads = 0;
+    for (K key : keys) {
       CachedRecord<K, V> entry = map.get(key);
-      if (entry != null) {
-        entry.access();
-        if (entry.isExpired()) {
-          log.trace("Removing expired entry on access -> {}", key);
-          remove(entry);
-          return null;
+      if (entry == null) {
+        misses++;
+        publish(EventType.MISS, key);
+        continue;
+      }
+      if (!entry.access(now, ttlOf(entry))) {
+        expiredReads++;
+        if (map.remove(key, entry)) {
+          expired.add(entry);
         }
-        V value = entry.getValue();
-        log.trace("Returning entry from cache -> {}:{}", key, value);
-        return value;
+        publish(EventType.EXPIRED_READ, key);
+        continue;
+      }
+      hits++;
+      publish(EventType.HIT, key);
+      if (now - entry.getCreated() >= refreshAfterWrite) {
+        refresh(entry);
+      }
+      if (bounded) {
+        segmentFor(key).onRead(key);
+      }
+      V value = entry.getValue();
+      if (expiry != null) {
+        expireAfterRead(entry, value, now);
+      }
+      if (copier != null && storageMode == StorageMode.VALUE) {
+        value = copier.copy(value);
       }
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+    statsCounter.recordReads(hits, misses + expiredReads, expiredReads);
+    removed(expired, RemovalCause.EXPIRED);
+    return values;
+  }
+
+  /**
+   * Reads the key, counting the read in the statistics only if asked to, so that a loading cache
+   * re-checking a key it already counted as a miss does not count it twice.
+   */
+  V get(K key, boolean recordStats) {
+    CachedRecord<K, V> entry = map.get(key);
+    if (entry == null) {
+      if (recordStats) {
+        statsCounter.recordMiss();
+        publish(EventType.MISS, key);
+      }
+      return null;
+    }
+    long now = ticker.read();
+    if (!entry.access(now, ttlOf(entry))) {
+      if (recordStats) {
+        statsCounter.recordMiss();
+        statsCounter.recordExpiredRead();
+        publish(EventType.EXPIRED_READ, key);
+      }
+      remove(entry, RemovalCause.EXPIRED);
       return null;
     }
+    if (recordStats) {
+      statsCounter.recordHit();
+      publish(EventType.HIT, key);
+    }
+    if (now - entry.getCreated() >= refreshAfterWrite) {
+      refresh(entry);
+    }
+    if (bounded) {
+      segmentFor(key).onRead(key);
+    }
+    V value = entry.getValue();
+    if (expiry != null) {
+      expireAfterRead(entry, value, now);
+    }
+    if (copier != null && storageMode == StorageMode.VALUE) {
+      value = copier.copy(value);
+    }
+    return value;
+  }
+
+  private void publish(EventType type, K key) {
+    if (eventListener != null) {
+      eventListener.onEvent(type, key);
+    }
+  }
+
+  /**
+   * Called on a read of a record older than {@code refreshAfterWrite}; caches that can load
+   * values reload it in the background while the current value keeps being served.
+   */
+  void refresh(CachedRecord<K, V> record) {
+  }
+
+  /**
+   * The record currently mapped to the key, if any.
+   */
+  CachedRecord<K, V> getRecord(K key) {
+    return map.get(key);
+  }
+
+  /**
+   * Delivers the batches of an {@link InvalidationBus} to a cache it only holds weakly, as the
+   * scheduler's registrations do, so a cache that is discarded without being closed can still be
+   * garbage collected; the bus is closed with the first batch that arrives after that.
+   */
+  private static final class InvalidationListener<K extends Serializable> implements
+      Consumer<Collection<K>> {
+
+    private final WeakReference<Cache<K, ?>> cache;
+    private final InvalidationBus<K> bus;
+
+    private InvalidationListener(Cache<K, ?> cache, InvalidationBus<K> bus) {
+      this.cache = new WeakReference<>(cache);
+      this.bus = bus;
+    }
+
+    @Override
+    public void accept(Collection<K> keys) {
+      Cache<K, ?> target = cache.get();
+      if (target == null) {
+        log.debug("Closing the invalidation bus of a cache that was never closed");
+        bus.close();
+      } else {
+        target.invalidateLocally(keys);
+      }
+    }
+  }
+
+  /**
+   * One of the independent parts a cache splits its bookkeeping into, one per
+   * {@link CacheBuilder#concurrencyLevel(int) concurrency level}. Keys hash to a segment, and each
+   * segment has its own share of the bounds, its own eviction policy, read and write buffers,
+   * timer wheel and eviction lock, so threads reading and writing keys of different segments
+   * never contend on maintenance.
+   */
+  private final class Segment {
+
+    private final EvictionPolicy<K> evictionPolicy;
+    private final ReadBuffer<K> readBuffer;
+    private final TimerWheel<K, V> timerWheel;
+    private final Queue<Runnable> writeBuffer = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder size = new LongAdder();
+    private final LongAdder totalWeight = new LongAdder();
+    private final Long maximumSize;
+    private final Long maximumWeight;
+    private long policySize;
+
+    Segment(EvictionPolicy<K> evictionPolicy, Long maximumSize, Long maximumWeight) {
+      this.evictionPolicy = evictionPolicy;
+      this.maximumSize = maximumSize;
+      this.maximumWeight = maximumWeight;
+      this.timerWheel = new TimerWheel<>(ticker.read());
+      if (evictionPolicy == null) {
+        this.readBuffer = null;
+      } else {
+        this.policySize = maximumSize == null ? INITIAL_WEIGHTED_POLICY_SIZE : maximumSize;
+        this.evictionPolicy.initialize(policySize);
+        this.readBuffer = new ReadBuffer<>();
+      }
+    }
+
+    /**
+     * Records a read in the read buffer, draining it once the reading thread's stripe is full.
+     */
+    void onRead(K key) {
+      if (readBuffer.offer(key)) {
+        tryMaintenance();
+      }
+    }
+
+    /**
+     * Accounts for a record that has just been put, returning the task that replays the put to
+     * the timer wheel and eviction policy, or null if neither needs to know of it.
+     */
+    Runnable afterPut(CachedRecord<K, V> entry, CachedRecord<K, V> previous) {
+      if (evictionPolicy != null) {
+        if (previous == null) {
+          size.increment();
+          totalWeight.add(entry.getWeight());
+        } else {
+          totalWeight.add(entry.getWeight() - previous.getWeight());
+        }
+      } else if (!entry.hasExpiry() && (previous == null || !previous.hasExpiry())) {
+        return null;
+      }
+      return () -> {
+        if (previous != null) {
+          timerWheel.deschedule(previous);
+        }
+        if (map.get(entry.getId()) == entry) {
+          if (entry.hasExpiry()) {
+            timerWheel.schedule(entry);
+          }
+          if (evictionPolicy != null) {
+            evictionPolicy.onInsert(entry.getId());
+          }
+        }
+      };
+    }
+
+    /**
+     * Accounts for a record the caller has removed from the map.
+     */
+    void afterRemove(CachedRecord<K, V> record) {
+      if (evictionPolicy != null) {
+        size.decrement();
+        totalWeight.add(-record.getWeight());
+        afterWrite(() -> {
+          timerWheel.deschedule(record);
+          if (!map.containsKey(record.getId())) {
+            evictionPolicy.onRemove(record.getId());
+          }
+        });
+      } else if (record.hasExpiry()) {
+        afterWrite(() -> timerWheel.deschedule(record));
+      }
+    }
+
+    /**
+     * Accounts for records of this segment the caller has removed from the map, with one
+     * buffered write for the timer wheel and eviction policy.
+     */
+    void afterRemoveAll(List<CachedRecord<K, V>> records) {
+      boolean deschedule = evictionPolicy != null;
+      long weight = 0;
+      for (CachedRecord<K, V> record : records) {
+        weight += record.getWeight();
+        deschedule |= record.hasExpiry();
+      }
+      if (evictionPolicy != null) {
+        size.add(-records.size());
+        totalWeight.add(-weight);
+      }
+      if (deschedule) {
+        afterWrite(() -> {
+          for (CachedRecord<K, V> record : records) {
+            timerWheel.deschedule(record);
+            if (evictionPolicy != null && !map.containsKey(record.getId())) {
+              evictionPolicy.onRemove(record.getId());
+            }
+          }
+        });
+      }
+    }
+
+    /**
+     * Moves a record whose expiry was changed by a read to the bucket it now belongs in, if it is
+     * still cached.
+     */
+    void reschedule(CachedRecord<K, V> record) {
+      if (map.get(record.getId()) != record) {
+        return;
+      }
+      if (record.hasExpiry()) {
+        timerWheel.schedule(record);
+      } else {
+        timerWheel.deschedule(record);
+      }
+    }
+
+    void afterWrite(Runnable task) {
+      writeBuffer.add(task);
+      tryMaintenance();
+    }
+
+    /**
+     * Runs maintenance only if no other thread is already doing so; never blocks. Rechecks the
+     * write buffer after releasing the lock, since another thread may have queued a write and
+     * failed to acquire the lock just before it was released.
+     */
+    void tryMaintenance() {
+      do {
+        if (!evictionLock.tryLock()) {
+          return;
+        }
+        maintenanceAndUnlock();
+      } while (!writeBuffer.isEmpty());
+    }
+
+    int runMaintenance() {
+      evictionLock.lock();
+      return maintenanceAndUnlock();
+    }
+
+    private int maintenanceAndUnlock() {
+      List<Map.Entry<CachedRecord<K, V>, RemovalCause>> removed;
+      try {
+        removed = maintenance();
+      } finally {
+        evictionLock.unlock();
+      }
+      notifyMaintenance(removed);
+      return removed.size();
+    }
+
+    /**
+     * Replays buffered reads and writes to the timer wheel and eviction policy, expires the
+     * records that have come due and evicts until the segment is back within its share of the
+     * maximum size and weight. Must be called with the eviction lock held.
+     *
+     * @return the records removed, whose listeners should be notified once the lock is released
+     */
+    private List<Map.Entry<CachedRecord<K, V>, RemovalCause>> maintenance() {
+      if (evictionPolicy != null) {
+        readBuffer.drainTo(evictionPolicy::onAccess);
+      }
+      Runnable task;
+      while ((task = writeBuffer.poll()) != null) {
+        task.run();
+      }
+      List<Map.Entry<CachedRecord<K, V>, RemovalCause>> removed = new ArrayList<>();
+      timerWheel.advance(ticker.read(), record -> {
+        if (map.remove(record.getId(), record)) {
+          if (evictionPolicy != null) {
+            size.decrement();
+            totalWeight.add(-record.getWeight());
+            evictionPolicy.onRemove(record.getId());
+          }
+          removed.add(new SimpleImmutableEntry<>(record, RemovalCause.EXPIRED));
+        }
+      });
+      if (evictionPolicy != null) {
+        evict(removed);
+      }
+      return removed;
+    }
+
+    private void evict(List<Map.Entry<CachedRecord<K, V>, RemovalCause>> evicted) {
+      if (maximumSize == null && size.sum() > policySize) {
+        while (size.sum() > policySize) {
+          policySize *= 2;
+        }
+        evictionPolicy.initialize(policySize);
+      }
+      while (true) {
+        RemovalCause cause;
+        if (maximumSize != null && size.sum() > maximumSize) {
+          cause = RemovalCause.SIZE;
+        } else if (maximumWeight != null && totalWeight.sum() > maximumWeight) {
+          cause = RemovalCause.WEIGHTED;
+        } else {
+          break;
+        }
+        K victim = evictionPolicy.evict();
+        if (victim == null) {
+          break;
+        }
+        CachedRecord<K, V> record = map.get(victim);
+        if (record != null && map.remove(victim, record)) {
+          size.decrement();
+          totalWeight.add(-record.getWeight());
+          timerWheel.deschedule(record);
+          evicted.add(new SimpleImmutableEntry<>(record, cause));
+        }
+      }
+    }
   }
 
   public static class CacheBuilder<K extends Serializable, V> {
 
     private Long ttl;
+    private Long refreshAfterWrite;
     private Long evictionSleepTime;
     private boolean refreshTtlOnAccess;
+    private Expiry<K, V> expiry;
     private EvictionProtocol evictionProtocol;
     private boolean implicitEvicition;
     private boolean enableEviction;
+    private StorageMode storageMode = StorageMode.REFERENCE;
+    private Copier<V> copier;
+    private Serializer<V> serializer;
+    private Long maximumSize;
+    private Long maximumWeight;
+    private Weigher<K, V> weigher;
+    private EvictionPolicy<K> evictionPolicy;
+    private Supplier<EvictionPolicy<K>> evictionPolicies;
+    private int concurrencyLevel = 1;
+    private CacheScheduler scheduler;
+    private Ticker ticker = Ticker.systemTicker();
     private List<RemovalListener<K, V>> removalListeners = new ArrayList<>();
+    private Executor removalExecutor;
+    private Executor executor;
+    private boolean recordStats;
+    private String jmxName;
+    private Long offHeapCapacity;
+    private Path offHeapFile;
+    private CacheEventListener<K> eventListener;
+    private Path warmFrom;
+    private CacheWriter<K, V> writer;
+    private WriteMode writeMode = WriteMode.WRITE_THROUGH;
+    private int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+    private long writeDelay = DEFAULT_WRITE_DELAY;
+    private int writeQueueCapacity = DEFAULT_WRITE_QUEUE_CAPACITY;
+    private InvalidationBus<K> invalidationBus;
+    private int invalidationBatchSize = DEFAULT_INVALIDATION_BATCH_SIZE;
+    private long invalidationDelay = DEFAULT_INVALIDATION_DELAY;
 
     CacheBuilder() {
     }
@@ -151,12 +1304,33 @@ public abstract class Cache<K extends Serializable, V> {
       return this;
     }
 
+    /**
+     * Reloads an entry in the background once it is older than the given number of milliseconds.
+     * Until the reload completes, reads keep returning the current value; only an entry past its
+     * TTL makes a read wait for a load. Applies to caches built with a {@link CacheLoader}.
+     */
+    public CacheBuilder<K, V> refreshAfterWrite(long refreshAfterWrite) {
+      this.refreshAfterWrite = refreshAfterWrite;
+      return this;
+    }
+
     public CacheBuilder<K, V> refreshTtlOnAccess(boolean refreshTtlOnAccess) {
       this.refreshTtlOnAccess = refreshTtlOnAccess;
       this.implicitEvicition = true;
       return this;
     }
 
+    /**
+     * Expires each entry after the duration the given expiry decides for it when it is created,
+     * updated and read, instead of after a fixed {@link #ttl(long)}. A record's own TTL is
+     * ignored by such a cache.
+     */
+    public CacheBuilder<K, V> expiry(Expiry<K, V> expiry) {
+      this.expiry = expiry;
+      this.implicitEvicition = true;
+      return this;
+    }
+
     public CacheBuilder<K, V> evictionProtocol(EvictionProtocol evictionProtocol) {
       this.evictionProtocol = evictionProtocol;
       this.implicitEvicition = true;
@@ -169,21 +1343,299 @@ public abstract class Cache<K extends Serializable, V> {
       return this;
     }
 
+    /**
+     * Runs this cache's periodic eviction and invalidation publishing, and times its write-behind
+     * flushes, on the given scheduler instead of the shared one.
+     */
+    public CacheBuilder<K, V> scheduler(CacheScheduler scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    /**
+     * Reads time for expiry from the given ticker instead of {@link System#nanoTime()}, e.g.
+     * {@link Ticker#coarseTicker()}, or a fake ticker in tests.
+     */
+    public CacheBuilder<K, V> ticker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
     public CacheBuilder<K, V> enableEviction(boolean enableEviction) {
       this.enableEviction = enableEviction;
       return this;
     }
 
+    /**
+     * Sets whether the cache holds live references to values (the default) or private copies.
+     */
+    public CacheBuilder<K, V> storageMode(StorageMode storageMode) {
+      this.storageMode = storageMode;
+      return this;
+    }
+
+    /**
+     * Stores values by value, copying them with the given copier on the way in and out instead
+     * of going through a serialized snapshot.
+     */
+    public CacheBuilder<K, V> copier(Copier<V> copier) {
+      this.copier = copier;
+      this.storageMode = StorageMode.VALUE;
+      return this;
+    }
+
+    /**
+     * Serializes values with the given serializer instead of JSON wherever the cache keeps them
+     * serialized: snapshots in {@link StorageMode#VALUE}, off-heap storage, and the default
+     * weight of an entry.
+     */
+    public CacheBuilder<K, V> serializer(Serializer<V> serializer) {
+      this.serializer = serializer;
+      return this;
+    }
+
+    /**
+     * Bounds the cache to the given number of entries, evicting with {@link RemovalCause#SIZE}
+     * according to the eviction policy (Window TinyLFU unless another is set).
+     */
+    public CacheBuilder<K, V> maximumSize(long maximumSize) {
+      this.maximumSize = maximumSize;
+      return this;
+    }
+
+    /**
+     * Bounds the total weight of the cache's entries, evicting with {@link RemovalCause#WEIGHTED}
+     * according to the eviction policy. Entries are weighed by the length of their serialized
+     * form unless a {@link #weigher(Weigher)} is set.
+     */
+    public CacheBuilder<K, V> maximumWeight(long maximumWeight) {
+      this.maximumWeight = maximumWeight;
+      return this;
+    }
+
+    public CacheBuilder<K, V> weigher(Weigher<K, V> weigher) {
+      this.weigher = weigher;
+      return this;
+    }
+
+    public CacheBuilder<K, V> evictionPolicy(EvictionPolicy<K> evictionPolicy) {
+      this.evictionPolicy = evictionPolicy;
+      this.evictionPolicies = null;
+      return this;
+    }
+
+    /**
+     * Creates the eviction policy of each segment of a bounded cache with the given supplier,
+     * e.g. {@code EvictionPolicy::lru}; required instead of a single policy when the cache has
+     * more than one segment.
+     */
+    public CacheBuilder<K, V> evictionPolicy(Supplier<EvictionPolicy<K>> evictionPolicies) {
+      this.evictionPolicies = evictionPolicies;
+      this.evictionPolicy = null;
+      return this;
+    }
+
+    /**
+     * Splits the cache's eviction policy, read and write buffers, timer wheel and eviction lock
+     * into the given number of independent segments (rounded up to a power of two), each bounding
+     * its share of the keys to its share of the maximum size and weight. Segments let
+     * maintenance run on several threads at once under write-heavy load, at the price of
+     * evicting by each segment's order rather than one order over the whole cache. Defaults to
+     * 1.
+     */
+    public CacheBuilder<K, V> concurrencyLevel(int concurrencyLevel) {
+      this.concurrencyLevel = concurrencyLevel;
+      return this;
+    }
+
+    /**
+     * Notifies removal listeners on the given executor instead of the thread that removed the
+     * entry, so a slow listener does not hold up reads, writes or maintenance. Removals are
+     * queued and delivered by one task at a time, in batches of everything removed since the
+     * last delivery; see {@link RemovalListener#onRemovalBatch(java.util.List)}.
+     */
+    public CacheBuilder<K, V> removalExecutor(Executor removalExecutor) {
+      this.removalExecutor = removalExecutor;
+      return this;
+    }
+
+    /**
+     * Runs the loads of an {@link AsyncCache}, background refreshes and write-behind flushes on
+     * the given executor instead of a virtual thread per task (or the common pool before Java 21).
+     */
+    public CacheBuilder<K, V> executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Records hits, misses, puts, removals by cause and load times, available from
+     * {@link Cache#stats()}. Without it the cache keeps no statistics and pays nothing for them.
+     */
+    public CacheBuilder<K, V> recordStats() {
+      this.recordStats = true;
+      return this;
+    }
+
+    /**
+     * Records statistics and exports them as a {@link CacheStatsMXBean} named
+     * {@code com.nodemules.cache:type=Cache,name=<name>} until the cache is closed.
+     */
+    public CacheBuilder<K, V> jmx(String name) {
+      this.jmxName = name;
+      this.recordStats = true;
+      return this;
+    }
+
+    /**
+     * Reports every hit, miss, put and removal to the given listener, e.g.
+     * {@link CacheEventListener#logging()} to trace them. Off by default.
+     */
+    public CacheBuilder<K, V> eventListener(CacheEventListener<K> eventListener) {
+      this.eventListener = eventListener;
+      return this;
+    }
+
+    /**
+     * Keeps values serialized in up to the given number of bytes of direct memory, outside
+     * the Java heap, while keys and their records stay on heap. Unless a {@link #maximumWeight}
+     * is also set, the cache is weight-bounded by the capacity, each entry weighing the bytes it
+     * occupies. Values that do not fit are kept on heap, still serialized.
+     */
+    public CacheBuilder<K, V> offHeap(long capacityBytes) {
+      this.offHeapCapacity = capacityBytes;
+      this.offHeapFile = null;
+      return this;
+    }
+
+    /**
+     * Like {@link #offHeap(long)}, but keeps values in pages memory-mapped from the given file,
+     * so the operating system can page them out instead of holding them all in memory.
+     */
+    public CacheBuilder<K, V> offHeap(long capacityBytes, Path file) {
+      this.offHeapCapacity = capacityBytes;
+      this.offHeapFile = file;
+      return this;
+    }
+
+    /**
+     * Restores the entries of a snapshot written by {@link Cache#snapshotTo(Path)} in the
+     * background once the cache is built, on the builder's executor and several blocks of the file
+     * at a time. The cache is usable straight away; keys put before their snapshot entry is read
+     * keep the newer value, and entries that have expired since the snapshot are skipped. A
+     * missing file warms nothing. See {@link Cache#warmed()}.
+     */
+    public CacheBuilder<K, V> warmFrom(Path path) {
+      this.warmFrom = path;
+      return this;
+    }
+
+    /**
+     * Writes every put, and deletes every invalidated key, with the given writer; through it
+     * before the cache is updated unless {@link #writeMode(WriteMode)} says otherwise.
+     */
+    public CacheBuilder<K, V> writer(CacheWriter<K, V> writer) {
+      this.writer = writer;
+      return this;
+    }
+
+    public CacheBuilder<K, V> writeMode(WriteMode writeMode) {
+      this.writeMode = writeMode;
+      return this;
+    }
+
+    /**
+     * Writes behind, flushing queued changes to the writer once {@code batchSize} keys are
+     * queued or the oldest has waited {@code delay} milliseconds, whichever comes first. Defaults
+     * to batches of 100 keys and a second.
+     */
+    public CacheBuilder<K, V> writeBehind(int batchSize, long delay) {
+      this.writeMode = WriteMode.WRITE_BEHIND;
+      this.writeBatchSize = batchSize;
+      this.writeDelay = delay;
+      return this;
+    }
+
+    /**
+     * How many keys may be queued to be written behind before puts and invalidations of other
+     * keys wait for room; 10,000 by default.
+     */
+    public CacheBuilder<K, V> writeQueueCapacity(int writeQueueCapacity) {
+      this.writeQueueCapacity = writeQueueCapacity;
+      return this;
+    }
+
+    /**
+     * Publishes the keys of every put and invalidation on the given bus, and drops the keys other
+     * nodes publish on it, making the cache a near cache over a store shared by the nodes when
+     * it also has a {@link #writer(CacheWriter)} and a {@link CacheLoader}. Values loaded from the
+     * store are not published. Keys are published in batches from the cache's
+     * {@link #scheduler(CacheScheduler)}, so writes and reads never wait for the bus; see
+     * {@link #invalidationBatching(int, long)}. The bus only holds the cache weakly.
+     */
+    public CacheBuilder<K, V> invalidationBus(InvalidationBus<K> invalidationBus) {
+      this.invalidationBus = invalidationBus;
+      return this;
+    }
+
+    /**
+     * Publishes invalidations once {@code batchSize} keys are queued or the oldest has waited
+     * {@code delay} milliseconds, whichever comes first, publishing a key changed several times
+     * in between once. Defaults to batches of 100 keys and 10 milliseconds.
+     */
+    public CacheBuilder<K, V> invalidationBatching(int batchSize, long delay) {
+      this.invalidationBatchSize = batchSize;
+      this.invalidationDelay = delay;
+      return this;
+    }
+
     public CacheBuilder<K, V> removalListener(RemovalListener<K, V> removalListener) {
       this.removalListeners.add(removalListener);
       return this;
     }
 
     public Cache<K, V> build() {
-      return new Cache<K, V>(ttl, refreshTtlOnAccess, evictionSleepTime, evictionProtocol,
-          implicitEvicition || enableEviction, removalListeners) {
+      return new Cache<K, V>(this) {
       };
     }
+
+    /**
+     * Builds a cache that computes missing values with the given loader.
+     *
+     * @throws IllegalArgumentException if values are kept serialized without a
+     *     {@link #serializer(Serializer)}, since loaded values could not be read back as their
+     *     type
+     */
+    public LoadingCache<K, V> build(CacheLoader<? super K, V> loader) {
+      if (keepsJson()) {
+        throw new IllegalArgumentException("A loading cache that keeps values serialized needs a"
+            + " serializer(Serializer) to read loaded values back");
+      }
+      return new LoadingCache<K, V>(this, loader) {
+      };
+    }
+
+    /**
+     * Builds an asynchronous view over a new cache, loading missing values with the given loader
+     * on the builder's executor.
+     */
+    public AsyncCache<K, V> buildAsync(CacheLoader<? super K, V> loader) {
+      return new AsyncCache<>(build(loader), loadExecutor());
+    }
+
+    boolean keepsJson() {
+      boolean serialized = offHeapCapacity != null
+          || storageMode == StorageMode.VALUE && copier == null;
+      return serialized && serializer == null;
+    }
+
+    Executor loadExecutor() {
+      if (executor != null) {
+        return executor;
+      }
+      Executor virtual = CacheScheduler.virtualThreadExecutor();
+      return virtual == null ? ForkJoinPool.commonPool() : virtual;
+    }
   }
 
 }
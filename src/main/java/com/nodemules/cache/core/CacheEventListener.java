@@ -0,0 +1,27 @@
+package com.nodemules.cache.core;
+
+/**
+ * A hook for observing individual cache operations, e.g. to trace them in a staging environment.
+ * Caches have none unless one is set with {@code eventListener(...)}, in which case the hot paths
+ * do no observability work at all. Listeners are called synchronously on the thread performing
+ * the operation and are only given the key, so they should be cheap and never block.
+ *
+ * @author brent
+ * @since 8/9/18.
+ */
+@FunctionalInterface
+public interface CacheEventListener<K> {
+
+  void onEvent(EventType type, K key);
+
+  /**
+   * A listener writing every event to this package's logger at trace level.
+   */
+  static <K> CacheEventListener<K> logging() {
+    return LoggingCacheEventListener.instance();
+  }
+
+  enum EventType {
+    HIT, MISS, EXPIRED_READ, PUT, REMOVAL;
+  }
+}
@@ -0,0 +1,33 @@
+package com.nodemules.cache.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes values for a {@link LoadingCache} on a miss. A loader returning {@code null} leaves the
+ * key unmapped.
+ *
+ * @author brent
+ * @since 8/5/18.
+ */
+@FunctionalInterface
+public interface CacheLoader<K, V> {
+
+  V load(K key) throws Exception;
+
+  /**
+   * Loads the values of several missing keys at once; keys absent from the returned map are left
+   * unmapped. Defaults to loading each key in turn, so loaders that can fetch a batch in one round
+   * trip should override it.
+   */
+  default Map<K, V> loadAll(Iterable<? extends K> keys) throws Exception {
+    Map<K, V> values = new LinkedHashMap<>();
+    for (K key : keys) {
+      V value = load(key);
+      if (value != null) {
+        values.put(key, value);
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,17 @@
+package com.nodemules.cache.core;
+
+/**
+ * Thrown by a {@link LoadingCache} when its {@link CacheLoader} fails. Every caller waiting on the
+ * same load receives the failure; nothing is cached, so the next miss tries again.
+ *
+ * @author brent
+ * @since 8/5/18.
+ */
+public class CacheLoaderException extends RuntimeException {
+
+  private static final long serialVersionUID = 5109387645382957162L;
+
+  public CacheLoaderException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,275 @@
+package com.nodemules.cache.core;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the periodic maintenance of any number of caches from one timer thread, instead of one
+ * sleeping thread per cache, along with their one-off tasks such as write-behind flushes and
+ * publishing invalidations. Each registered cache is ticked at its own interval; a tick that
+ * removes nothing doubles the delay to the next one, up to the configured maximum backoff, and a
+ * tick that removes something resets it.
+ *
+ * <p>Ticks and one-off tasks are handed to the maintenance executor, so a slow removal listener or
+ * writer on one cache does not delay the others. On Java 21+ that executor starts a virtual thread
+ * per task by default; before, it is a small pool of daemon threads that exit when idle.
+ * Registrations only hold their cache weakly, so a cache that is discarded without being closed
+ * is unregistered once it has been garbage collected.
+ *
+ * <p>A daemon thread of its own keeps a coarse clock, started the first time {@link #ticker()} is
+ * asked for, so caches that can tolerate its resolution read time from a volatile field instead of
+ * calling {@link System#nanoTime()} on every access. No tick can hold that clock back.
+ *
+ * @author brent
+ * @since 8/3/18.
+ */
+@Slf4j
+public final class CacheScheduler implements AutoCloseable {
+
+  private static final int DEFAULT_MAXIMUM_BACKOFF = 4;
+  private static final long DEFAULT_CLOCK_RESOLUTION = 1L;
+  private static final int MAXIMUM_POOL_SIZE = 4;
+  private static final long POOL_KEEP_ALIVE = 60L;
+
+  private static volatile CacheScheduler shared;
+
+  private final ScheduledExecutorService timer;
+  private final Executor executor;
+  private final ExecutorService pool;
+  private final int maximumBackoff;
+  private final long clockResolution;
+  private volatile long time = System.nanoTime();
+  private volatile ScheduledExecutorService clock;
+  private final Ticker ticker = () -> time;
+
+  private CacheScheduler(SchedulerBuilder builder) {
+    this.timer = Executors.newSingleThreadScheduledExecutor(daemonThreads("cache-scheduler-"));
+    Executor virtual = builder.executor == null && builder.virtualThreads
+        ? virtualThreadExecutor() : null;
+    if (builder.executor != null || virtual != null) {
+      this.executor = builder.executor != null ? builder.executor : virtual;
+      this.pool = null;
+    } else {
+      int size = Math.min(MAXIMUM_POOL_SIZE, Runtime.getRuntime().availableProcessors());
+      ThreadPoolExecutor threads = new ThreadPoolExecutor(size, size, POOL_KEEP_ALIVE,
+          TimeUnit.SECONDS, new LinkedBlockingQueue<>(), daemonThreads("cache-maintenance-"));
+      threads.allowCoreThreadTimeOut(true);
+      this.executor = threads;
+      this.pool = threads;
+    }
+    this.maximumBackoff = Math.max(1, builder.maximumBackoff);
+    this.clockResolution = Math.max(1L, builder.clockResolution);
+  }
+
+  /**
+   * The scheduler used by caches that are not given one explicitly.
+   */
+  public static CacheScheduler shared() {
+    if (shared == null) {
+      synchronized (CacheScheduler.class) {
+        if (shared == null) {
+          shared = builder().build();
+        }
+      }
+    }
+    return shared;
+  }
+
+  public static SchedulerBuilder builder() {
+    return new SchedulerBuilder();
+  }
+
+  /**
+   * A ticker reading this scheduler's coarse clock, which is refreshed every clock resolution.
+   */
+  public Ticker ticker() {
+    ensureClock();
+    return ticker;
+  }
+
+  /**
+   * Ticks the owner every interval, backing off while its ticks remove nothing. The tick is given
+   * the owner rather than capturing it, so the registration only holds the owner weakly.
+   */
+  @SuppressWarnings("unchecked")
+  <T> Registration register(T owner, ToIntFunction<? super T> tick, long interval) {
+    Registration registration = new Registration(owner, target -> tick.applyAsInt((T) target),
+        interval);
+    registration.schedule(interval);
+    return registration;
+  }
+
+  /**
+   * Runs the task once on the maintenance executor after the delay, unless this scheduler is
+   * closed first. The task is held until then, so it should not hold a cache.
+   */
+  void schedule(Runnable task, long delay, TimeUnit unit) {
+    try {
+      timer.schedule(() -> executor.execute(task), delay, unit);
+    } catch (RejectedExecutionException e) {
+      log.debug("Dropping a task scheduled after the scheduler was closed");
+    }
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+    synchronized (this) {
+      if (clock != null) {
+        clock.shutdownNow();
+      }
+    }
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  private void ensureClock() {
+    if (clock == null) {
+      synchronized (this) {
+        if (clock == null && !timer.isShutdown()) {
+          ScheduledExecutorService started =
+              Executors.newSingleThreadScheduledExecutor(daemonThreads("cache-clock-"));
+          started.scheduleAtFixedRate(() -> time = System.nanoTime(), clockResolution,
+              clockResolution, TimeUnit.MILLISECONDS);
+          clock = started;
+        }
+      }
+    }
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger threads = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+      thread.setPriority(Thread.MIN_PRIORITY);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * An executor starting a virtual thread per task, or null before Java 21.
+   */
+  static Executor virtualThreadExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (Executor) method.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * A cache's place in the schedule; closing it stops further ticks.
+   */
+  final class Registration implements AutoCloseable {
+
+    private final WeakReference<Object> owner;
+    private final ToIntFunction<Object> tick;
+    private final long interval;
+    private volatile boolean closed;
+    private volatile ScheduledFuture<?> next;
+
+    private Registration(Object owner, ToIntFunction<Object> tick, long interval) {
+      this.owner = new WeakReference<>(owner);
+      this.tick = tick;
+      this.interval = interval;
+    }
+
+    private void schedule(long delay) {
+      if (closed || timer.isShutdown()) {
+        return;
+      }
+      next = timer.schedule(() -> executor.execute(() -> tick(delay)), delay,
+          TimeUnit.MILLISECONDS);
+    }
+
+    private void tick(long delay) {
+      Object target = owner.get();
+      if (target == null || closed) {
+        return;
+      }
+      int removed = 0;
+      try {
+        removed = tick.applyAsInt(target);
+      } catch (RuntimeException e) {
+        log.error("Eviction protocol failed", e);
+      }
+      target = null;
+      schedule(removed > 0 ? interval : Math.min(delay * 2, interval * maximumBackoff));
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      ScheduledFuture<?> scheduled = next;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+  }
+
+  public static class SchedulerBuilder {
+
+    private Executor executor;
+    private boolean virtualThreads = true;
+    private int maximumBackoff = DEFAULT_MAXIMUM_BACKOFF;
+    private long clockResolution = DEFAULT_CLOCK_RESOLUTION;
+
+    SchedulerBuilder() {
+    }
+
+    /**
+     * Runs ticks and one-off tasks on the given executor instead of the default one.
+     */
+    public SchedulerBuilder executor(Executor executor) {
+      this.executor = executor;
+      return this;
+    }
+
+    /**
+     * Whether to run each tick on its own virtual thread when running on Java 21 or later
+     * (the default); otherwise ticks run on a small pool of daemon threads.
+     */
+    public SchedulerBuilder virtualThreads(boolean virtualThreads) {
+      this.virtualThreads = virtualThreads;
+      return this;
+    }
+
+    /**
+     * How many times its base interval a cache's tick may be backed off to while its ticks keep
+     * removing nothing; 1 disables backoff.
+     */
+    public SchedulerBuilder maximumBackoff(int maximumBackoff) {
+      this.maximumBackoff = maximumBackoff;
+      return this;
+    }
+
+    /**
+     * How often, in milliseconds, the coarse clock behind {@link CacheScheduler#ticker()} is
+     * refreshed.
+     */
+    public SchedulerBuilder clockResolution(long clockResolution) {
+      this.clockResolution = clockResolution;
+      return this;
+    }
+
+    public CacheScheduler build() {
+      return new CacheScheduler(this);
+    }
+  }
+}
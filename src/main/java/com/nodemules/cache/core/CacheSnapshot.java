@@ -0,0 +1,246 @@
+package com.nodemules.cache.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes a cache's entries to a file and reads them back into a new cache, so an application
+ * restarted with {@link Cache.CacheBuilder#warmFrom(Path)} does not start cold.
+ *
+ * <p>The file is a header (magic number, format version and the wall-clock time it was written)
+ * followed by blocks of up to {@value #BLOCK_RECORDS} records. Each block is its length and record
+ * count followed by a Java serialization stream of each record's remaining TTL in nanoseconds,
+ * or -1, and the record itself, whose value is written in its serialized form. Class descriptors
+ * are therefore written once per block rather than once per record, and blocks can be restored
+ * independently of each other, in parallel.
+ *
+ * @author brent
+ * @since 8/12/18.
+ */
+@Slf4j
+final class CacheSnapshot {
+
+  private static final int MAGIC = 0x4E4D4353;
+  private static final int VERSION = 1;
+  private static final int HEADER = Integer.BYTES * 2 + Long.BYTES;
+  private static final int BLOCK_HEADER = Integer.BYTES * 2;
+  private static final int BLOCK_RECORDS = 1024;
+  private static final int BLOCK_BYTES = 1 << 20;
+  private static final int PARALLELISM = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+  private CacheSnapshot() {
+  }
+
+  /**
+   * Writes the records that have not expired by {@code now} to a temporary file that then
+   * replaces the given one, so a crash while writing never leaves a truncated snapshot behind.
+   *
+   * @return the number of records written
+   */
+  static <K extends Serializable, V> long write(Iterable<CachedRecord<K, V>> records, long now,
+      Path path) throws IOException {
+    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    long written = 0;
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+      header.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).flip();
+      writeFully(channel, header);
+      Block block = new Block();
+      ObjectOutputStream out = new ObjectOutputStream(block);
+      int count = 0;
+      for (CachedRecord<K, V> record : records) {
+        if (record.isExpired(now)) {
+          continue;
+        }
+        out.writeLong(record.remaining(now));
+        out.writeObject(record);
+        written++;
+        if (++count == BLOCK_RECORDS || block.size() >= BLOCK_BYTES) {
+          out.close();
+          block.writeTo(channel, count);
+          out = new ObjectOutputStream(block);
+          count = 0;
+        }
+      }
+      out.close();
+      if (count > 0) {
+        block.writeTo(channel, count);
+      }
+      channel.force(true);
+    }
+    try {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return written;
+  }
+
+  /**
+   * Restores the snapshot at the given path into the cache on the executor. One task reads the
+   * file block by block and hands each block to another task, so blocks are deserialized in
+   * parallel while only a few are held in memory at a time; once that many are in flight the
+   * reading task restores the next block itself. Nothing waits on the block tasks from within the
+   * executor, so a single-threaded or saturated executor cannot deadlock the restore. Records that
+   * have expired since the snapshot was written are skipped, as are keys the cache already holds.
+   *
+   * @return a future completed with the number of records restored; with 0 if there is no file
+   */
+  static <K extends Serializable, V> CompletableFuture<Long> read(Path path, Executor executor,
+      Cache<K, V> cache) {
+    CompletableFuture<Long> restored = new CompletableFuture<>();
+    executor.execute(() -> {
+      try {
+        read(path, executor, cache, new Semaphore(PARALLELISM)).whenComplete((count, e) -> {
+          if (e == null) {
+            restored.complete(count);
+          } else {
+            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            log.warn("Failed to warm cache from {}", path, cause);
+            restored.completeExceptionally(cause);
+          }
+        });
+      } catch (NoSuchFileException e) {
+        log.debug("No snapshot to warm from at {}", path);
+        restored.complete(0L);
+      } catch (Exception e) {
+        log.warn("Failed to warm cache from {}", path, e);
+        restored.completeExceptionally(e);
+      }
+    });
+    return restored;
+  }
+
+  private static <K extends Serializable, V> CompletableFuture<Long> read(Path path,
+      Executor executor, Cache<K, V> cache, Semaphore permits)
+      throws IOException, ClassNotFoundException {
+    LongAdder restored = new LongAdder();
+    List<CompletableFuture<Void>> blocks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+      if (!readFully(channel, header) || header.getInt() != MAGIC) {
+        throw new IOException("Not a cache snapshot -> " + path);
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported cache snapshot version -> " + version);
+      }
+      long age = TimeUnit.MILLISECONDS.toNanos(
+          Math.max(0L, System.currentTimeMillis() - header.getLong()));
+      ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER);
+      while (readFully(channel, blockHeader)) {
+        ByteBuffer block = ByteBuffer.allocate(blockHeader.getInt());
+        int count = blockHeader.getInt();
+        if (!readFully(channel, block)) {
+          throw new IOException("Truncated cache snapshot -> " + path);
+        }
+        if (!permits.tryAcquire()) {
+          restored.add(restore(block.array(), count, age, cache));
+          continue;
+        }
+        blocks.add(CompletableFuture.runAsync(() -> {
+          try {
+            restored.add(restore(block.array(), count, age, cache));
+          } catch (IOException | ClassNotFoundException e) {
+            throw new CompletionException(e);
+          } finally {
+            permits.release();
+          }
+        }, executor));
+      }
+    }
+    return CompletableFuture.allOf(blocks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+      log.debug("Warmed cache with {} records from {}", restored.sum(), path);
+      return restored.sum();
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K extends Serializable, V> long restore(byte[] block, int count, long age,
+      Cache<K, V> cache) throws IOException, ClassNotFoundException {
+    long restored = 0;
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(block))) {
+      for (int i = 0; i < count; i++) {
+        long remaining = in.readLong();
+        CachedRecord<K, V> record = (CachedRecord<K, V>) in.readObject();
+        if (remaining != CachedRecord.NO_TTL) {
+          remaining -= age;
+          if (remaining <= 0) {
+            continue;
+          }
+        }
+        if (record.hasValue() && cache.restore(record, remaining)) {
+          restored++;
+        }
+      }
+    }
+    return restored;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Fills the buffer and flips it for reading.
+   *
+   * @return false if the channel was already at its end
+   */
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.clear();
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        if (buffer.position() == 0) {
+          return false;
+        }
+        throw new IOException("Truncated cache snapshot");
+      }
+    }
+    buffer.flip();
+    return true;
+  }
+
+  /**
+   * The serialized records of the block being written, written out without copying them.
+   */
+  private static final class Block extends ByteArrayOutputStream {
+
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER);
+
+    Block() {
+      super(BLOCK_BYTES);
+    }
+
+    void writeTo(FileChannel channel, int records) throws IOException {
+      header.clear();
+      header.putInt(count).putInt(records).flip();
+      writeFully(channel, header);
+      writeFully(channel, ByteBuffer.wrap(buf, 0, count));
+      reset();
+    }
+  }
+}
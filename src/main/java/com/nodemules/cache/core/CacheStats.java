@@ -0,0 +1,120 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A point-in-time snapshot of a cache's statistics, returned by {@link Cache#stats()}. Every
+ * count is zero for a cache built without {@code recordStats()}.
+ *
+ * @author brent
+ * @since 8/8/18.
+ */
+@Getter
+@ToString
+public final class CacheStats {
+
+  /**
+   * Load times are bucketed by powers of two of microseconds: bucket 0 holds loads under 2us,
+   * bucket {@code i} loads in [2^i, 2^(i+1)) us, and the last bucket everything from ~36 minutes.
+   */
+  static final int LOAD_TIME_BUCKETS = 32;
+
+  private static final CacheStats EMPTY = new CacheStats(0, 0, 0, 0,
+      new long[RemovalCause.values().length], 0, 0, 0, new long[LOAD_TIME_BUCKETS]);
+
+  private final long hitCount;
+  private final long missCount;
+  private final long expiredReadCount;
+  private final long putCount;
+  @Getter(AccessLevel.NONE)
+  private final long[] removalCounts;
+  private final long loadSuccessCount;
+  private final long loadFailureCount;
+  private final long totalLoadTime;
+  @Getter(AccessLevel.NONE)
+  private final long[] loadTimeHistogram;
+
+  CacheStats(long hitCount, long missCount, long expiredReadCount, long putCount,
+      long[] removalCounts, long loadSuccessCount, long loadFailureCount, long totalLoadTime,
+      long[] loadTimeHistogram) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.expiredReadCount = expiredReadCount;
+    this.putCount = putCount;
+    this.removalCounts = removalCounts;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadFailureCount = loadFailureCount;
+    this.totalLoadTime = totalLoadTime;
+    this.loadTimeHistogram = loadTimeHistogram;
+  }
+
+  static CacheStats empty() {
+    return EMPTY;
+  }
+
+  public long requestCount() {
+    return hitCount + missCount;
+  }
+
+  public double hitRate() {
+    long requests = requestCount();
+    return requests == 0 ? 1.0 : (double) hitCount / requests;
+  }
+
+  public double missRate() {
+    long requests = requestCount();
+    return requests == 0 ? 0.0 : (double) missCount / requests;
+  }
+
+  /**
+   * The number of entries removed for the given cause.
+   */
+  public long removalCount(RemovalCause cause) {
+    return removalCounts[cause.ordinal()];
+  }
+
+  /**
+   * The number of entries removed by the cache itself, i.e. for any cause but
+   * {@link RemovalCause#EXPLICIT}.
+   */
+  public long evictionCount() {
+    long evictions = 0;
+    for (RemovalCause cause : RemovalCause.values()) {
+      if (cause != RemovalCause.EXPLICIT) {
+        evictions += removalCounts[cause.ordinal()];
+      }
+    }
+    return evictions;
+  }
+
+  public long loadCount() {
+    return loadSuccessCount + loadFailureCount;
+  }
+
+  /**
+   * The mean time spent loading a value, in nanoseconds.
+   */
+  public double averageLoadPenalty() {
+    long loads = loadCount();
+    return loads == 0 ? 0.0 : (double) totalLoadTime / loads;
+  }
+
+  /**
+   * Counts of loads per load-time bucket; bucket {@code i} counts loads that took at least
+   * {@code 2^i} microseconds (bucket 0 also counts anything faster) and less than
+   * {@code 2^(i+1)}.
+   */
+  public long[] getLoadTimeHistogram() {
+    return loadTimeHistogram.clone();
+  }
+
+  static int loadTimeBucket(long micros) {
+    if (micros <= 1) {
+      return 0;
+    }
+    return Math.min(LOAD_TIME_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+  }
+}
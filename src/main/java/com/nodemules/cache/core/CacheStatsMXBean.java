@@ -0,0 +1,39 @@
+package com.nodemules.cache.core;
+
+/**
+ * The statistics a cache built with {@code jmx(name)} exports under
+ * {@code com.nodemules.cache:type=Cache,name=<name>}.
+ *
+ * @author brent
+ * @since 8/8/18.
+ */
+public interface CacheStatsMXBean {
+
+  long getSize();
+
+  long getHitCount();
+
+  long getMissCount();
+
+  double getHitRate();
+
+  long getExpiredReadCount();
+
+  long getPutCount();
+
+  long getEvictionCount();
+
+  long getExpiredCount();
+
+  long getSizeEvictionCount();
+
+  long getWeightEvictionCount();
+
+  long getExplicitRemovalCount();
+
+  long getLoadSuccessCount();
+
+  long getLoadFailureCount();
+
+  double getAverageLoadPenalty();
+}
@@ -0,0 +1,38 @@
+package com.nodemules.cache.core;
+
+import java.util.Map;
+
+/**
+ * Propagates a cache's puts and invalidations to a backing store. Values a {@link LoadingCache}
+ * loads, and entries that are evicted or expire, are not written, since the store already holds
+ * them.
+ *
+ * @author brent
+ * @since 8/13/18.
+ * @see WriteMode
+ */
+public interface CacheWriter<K, V> {
+
+  void write(K key, V value) throws Exception;
+
+  void delete(K key) throws Exception;
+
+  /**
+   * Writes several values at once. Defaults to writing each in turn, so writers that can store a
+   * batch in one round trip should override it.
+   */
+  default void writeAll(Map<? extends K, ? extends V> values) throws Exception {
+    for (Map.Entry<? extends K, ? extends V> entry : values.entrySet()) {
+      write(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Deletes several keys at once. Defaults to deleting each in turn.
+   */
+  default void deleteAll(Iterable<? extends K> keys) throws Exception {
+    for (K key : keys) {
+      delete(key);
+    }
+  }
+}
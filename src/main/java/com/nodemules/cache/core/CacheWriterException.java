@@ -0,0 +1,17 @@
+package com.nodemules.cache.core;
+
+/**
+ * Thrown by a {@link Cache} writing through to a {@link CacheWriter} that failed; the cache is
+ * left unchanged.
+ *
+ * @author brent
+ * @since 8/13/18.
+ */
+public class CacheWriterException extends RuntimeException {
+
+  private static final long serialVersionUID = -2287513504936712089L;
+
+  public CacheWriterException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -1,17 +1,19 @@
 package com.nodemules.cache.core;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
-import java.util.Date;
-import lombok.AccessLevel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -24,24 +26,49 @@ public abstract class CachedRecord<K extends Serializable, V> implements Seriali
 
   private static final long serialVersionUID = -7742858298757254635L;
 
+  /**
+   * The serialized form predates {@link RecordTtl}: the TTL is written as nanoseconds, or
+   * {@link #NO_TTL}, next to whether reads refresh it, so snapshots written by earlier versions
+   * still read back.
+   */
+  private static final ObjectStreamField[] serialPersistentFields = {
+      new ObjectStreamField("id", Serializable.class),
+      new ObjectStreamField("refreshTtl", boolean.class),
+      new ObjectStreamField("created", long.class),
+      new ObjectStreamField("expires", long.class),
+      new ObjectStreamField("accessed", long.class),
+      new ObjectStreamField("ttl", long.class),
+      new ObjectStreamField("data", byte[].class)};
+
   private static final ObjectMapper mapper = new ObjectMapper();
 
+  static final long NO_EXPIRY = Long.MAX_VALUE;
+  static final long NO_TTL = -1L;
+  @SuppressWarnings("rawtypes")
+  private static final AtomicLongFieldUpdater<CachedRecord> EXPIRES =
+      AtomicLongFieldUpdater.newUpdater(CachedRecord.class, "expires");
+
   @Getter
   private K id;
 
-  private boolean refreshTtl;
-
-  private Long created;
-  private Long expires;
-  private Long accessed;
+  private long created;
+  private volatile long expires = NO_EXPIRY;
+  /**
+   * The TTL this record was constructed with, or null to take its cache's.
+   */
+  private RecordTtl ttl;
 
-  @Getter(AccessLevel.PACKAGE)
-  private Long ttl;
-
-  @Getter(AccessLevel.PRIVATE)
-  private String data;
-  @Setter(AccessLevel.PRIVATE)
+  private byte[] data;
   private transient V value;
+  private transient int weight;
+  /**
+   * The ticker and serializer of the cache this record was put in, shared by all its records.
+   */
+  private transient RecordContext<V> context;
+  private transient volatile OffHeapValue offHeap;
+
+  transient CachedRecord<K, V> previousInTimer;
+  transient CachedRecord<K, V> nextInTimer;
 
   public CachedRecord(K id, V value) {
     this(id, value, null, false);
@@ -53,78 +80,371 @@ public abstract class CachedRecord<K extends Serializable, V> implements Seriali
 
   public CachedRecord(K id, V value, Long ttl, boolean refreshTtlOnAccess) {
     this.id = id;
-    this.created = ZonedDateTime.now().toInstant().toEpochMilli();
-    try {
-      data = new ObjectMapper().writeValueAsString(value);
-    } catch (JsonProcessingException e) {
-      log.error("An error occured serializing CachedRecord.data");
-    }
+    this.value = value;
     if (ttl != null) {
-      this.ttl = ttl;
-      this.expires = created + ttl;
-      this.refreshTtl = refreshTtlOnAccess;
-//      log.trace("{} created -> {}, expires -> {}", id, getCreatedTime(), getExpireTime());
+      this.ttl = new RecordTtl(ttl, refreshTtlOnAccess);
     }
   }
 
   @Override
   public ZonedDateTime getCreatedTime() {
-//    log.trace("{} created -> {}", id, expires);
-    if (expires == null) {
+    if (expires == NO_EXPIRY) {
       return null;
     }
-    return ZonedDateTime.from(Instant.ofEpochMilli(created).atZone(ZoneId.systemDefault()));
+    return toDateTime(created);
   }
 
   @Override
   public ZonedDateTime getExpireTime() {
-//    log.trace("{} expires -> {}", id, expires);
-    if (expires == null) {
+    long expires = this.expires;
+    if (expires == NO_EXPIRY) {
       return null;
     }
-    return ZonedDateTime.from(Instant.ofEpochMilli(expires).atZone(ZoneId.systemDefault()));
+    return toDateTime(expires);
+  }
+
+  /**
+   * The TTL this record was constructed with, or null if it takes its cache's.
+   */
+  RecordTtl getTtl() {
+    return ttl;
   }
 
-  void setExpireTime(long ttl) {
-    this.ttl = ttl;
-    log.trace("Setting ttl -> {}", ttl);
-    this.expires = calculateEpochTimeFromTtl(ZonedDateTime.now(), ttl);
-    log.trace("Setting expires -> {}", expires);
+  /**
+   * Attaches the record to the cache it is being put in, before anything reads or stores its
+   * value.
+   */
+  void setContext(RecordContext<V> context) {
+    this.context = context;
   }
 
-  void setExpireTime(long ttl, boolean refreshTtlOnAccess) {
-    setExpireTime(ttl);
-    this.refreshTtl = refreshTtlOnAccess;
+  /**
+   * Stamps the record with the time it was put into a cache and the time its cache decided it
+   * expires, or {@link #NO_EXPIRY}.
+   */
+  void initialize(long now, long expires) {
+    this.created = now;
+    this.expires = expires;
   }
 
   @Override
   public boolean isExpired() {
-    if (expires != null) {
-      return Date.from(Instant.now()).after(Date.from(Instant.ofEpochMilli(expires)));
+    RecordContext<V> context = this.context;
+    return context != null && isExpired(context.getTicker().read());
+  }
+
+  boolean isExpired(long now) {
+    return now > expires;
+  }
+
+  boolean hasExpiry() {
+    return expires != NO_EXPIRY;
+  }
+
+  long getCreated() {
+    return created;
+  }
+
+  long getExpires() {
+    return expires;
+  }
+
+  /**
+   * The nanoseconds until this record expires, or {@link #NO_TTL} if it never does.
+   */
+  long remaining(long now) {
+    long expires = this.expires;
+    return expires == NO_EXPIRY ? NO_TTL : expires - now;
+  }
+
+  /**
+   * Records an access to this record, extending its expiry when the given TTL, which the cache
+   * resolved for it, is refreshed on access. The expiry is only ever moved forward with a CAS, so
+   * a record that has already expired stays expired and can be removed safely by whichever thread
+   * observes it first. An extension of less than 1/64th of the TTL is skipped, so a hot record
+   * read by many threads is not written on every read.
+   *
+   * @return false if the record was expired at the time of access
+   */
+  boolean access(long now, RecordTtl ttl) {
+    while (true) {
+      long current = expires;
+      if (now > current) {
+        return false;
+      }
+      if (ttl == null || !ttl.isRefreshOnAccess() || current == NO_EXPIRY) {
+        return true;
+      }
+      long refreshed = now + ttl.getNanos();
+      if (refreshed - current <= (ttl.getNanos() >>> 6)) {
+        return true;
+      }
+      if (EXPIRES.compareAndSet(this, current, refreshed)) {
+        return true;
+      }
     }
-    return false;
   }
 
-  void access() {
-    if (refreshTtl && expires != null) {
-      log.trace("Refreshing access for {}ms -> {}", ttl, id);
-      this.accessed = ZonedDateTime.now().toInstant().toEpochMilli();
-      expires = accessed + ttl;
+  /**
+   * Moves the expiry as the cache's {@link Expiry} decided on a read, unless another thread has
+   * moved it since it was read as {@code current}.
+   */
+  boolean expireAt(long current, long expires) {
+    return EXPIRES.compareAndSet(this, current, expires);
+  }
+
+  /**
+   * Replaces the live value with an immutable serialized snapshot, which is deserialized again on
+   * every read.
+   *
+   * @throws SerializationException if the value cannot be serialized
+   */
+  void snapshot() {
+    if (data == null) {
+      data = serialize(value);
+    }
+    value = null;
+  }
+
+  /**
+   * Replaces a serialized value with the live value it deserializes to, for a record read back
+   * from a snapshot into a cache that stores values by reference.
+   *
+   * @throws SerializationException if the value cannot be deserialized
+   */
+  void inflate() {
+    if (data != null && offHeap == null) {
+      value = getValue();
+      data = null;
+    }
+  }
+
+  /**
+   * Replaces the live value with a private copy made by the given copier.
+   */
+  void copy(Copier<V> copier) {
+    if (value != null) {
+      value = copier.copy(value);
+    }
+  }
+
+  /**
+   * Moves the serialized value into the off-heap store. If the store has no room for it the record
+   * keeps the bytes on heap instead.
+   *
+   * @return the number of bytes the value now occupies
+   * @throws SerializationException if the value cannot be serialized
+   */
+  int moveOffHeap(OffHeapStore store) {
+    if (offHeap != null) {
+      ByteBuffer view = offHeap.view();
+      return view == null ? 0 : OffHeapStore.chunkSize(view.remaining());
+    }
+    byte[] bytes = data == null ? serialize(value) : data;
+    long address = store.allocate(bytes);
+    value = null;
+    if (address == OffHeapStore.NO_ADDRESS) {
+      data = bytes;
+      return bytes.length;
+    }
+    data = null;
+    offHeap = new OffHeapValue(store, address);
+    return OffHeapStore.chunkSize(bytes.length);
+  }
+
+  /**
+   * Frees the record's off-heap chunk; reads of the record return null afterwards.
+   */
+  void releaseOffHeap() {
+    if (offHeap != null) {
+      offHeap.free();
     }
   }
 
+  /**
+   * Copies the serialized value back onto the heap before freeing the record's off-heap chunk, for
+   * a removed record whose value may still be read after its chunk is reused.
+   */
+  void moveOnHeap() {
+    OffHeapValue offHeap = this.offHeap;
+    if (offHeap == null) {
+      return;
+    }
+    ByteBuffer view = offHeap.view();
+    if (view != null) {
+      byte[] bytes = new byte[view.remaining()];
+      view.get(bytes);
+      if (offHeap.isValid()) {
+        data = bytes;
+      }
+    }
+    this.offHeap = null;
+    offHeap.free();
+  }
+
+  int getWeight() {
+    return weight;
+  }
+
+  void setWeight(int weight) {
+    this.weight = weight;
+  }
+
+  /**
+   * The length of this record's serialized form, serializing the live value to measure it if the
+   * record does not already hold a snapshot.
+   */
+  int serializedLength() {
+    return data == null ? serialize(value).length : data.length;
+  }
+
+  /**
+   * @throws SerializationException if a stored snapshot cannot be deserialized
+   */
   protected V getValue(Class<V> clazz) {
+    OffHeapValue offHeap = this.offHeap;
+    if (offHeap != null) {
+      return readOffHeap(offHeap, clazz);
+    }
+    if (data == null) {
+      return value;
+    }
+    Serializer<V> serializer = serializer();
     try {
-      return mapper.readValue(data, clazz);
+      return serializer == null ? mapper.readValue(data, clazz) : serializer.deserialize(data);
     } catch (IOException e) {
-      return null;
+      throw new SerializationException("Could not deserialize the value of " + id, e);
+    }
+  }
+
+  /**
+   * Deserializes straight from the off-heap chunk, revalidating the chunk afterwards in case it
+   * was freed and reused while being read. A chunk that was is read from the heap copy if the
+   * record was moved back onto the heap first, and as a miss otherwise.
+   */
+  private V readOffHeap(OffHeapValue offHeap, Class<V> clazz) {
+    ByteBuffer view = offHeap.view();
+    if (view == null) {
+      return afterFree(offHeap, clazz);
+    }
+    Serializer<V> serializer = serializer();
+    try {
+      V read = serializer == null
+          ? mapper.readValue(new ByteBufferBackedInputStream(view), clazz)
+          : serializer.deserialize(view);
+      return offHeap.isValid() ? read : afterFree(offHeap, clazz);
+    } catch (IOException | RuntimeException e) {
+      if (!offHeap.isValid()) {
+        return afterFree(offHeap, clazz);
+      }
+      throw new SerializationException("Could not deserialize the value of " + id, e);
+    }
+  }
+
+  private V afterFree(OffHeapValue freed, Class<V> clazz) {
+    return offHeap != freed ? getValue(clazz) : null;
+  }
+
+  private Serializer<V> serializer() {
+    RecordContext<V> context = this.context;
+    return context == null ? null : context.getSerializer();
+  }
+
+  private byte[] serialize(V value) {
+    Serializer<V> serializer = serializer();
+    try {
+      return serializer == null ? mapper.writeValueAsBytes(value) : serializer.serialize(value);
+    } catch (IOException e) {
+      throw new SerializationException("Could not serialize the value of " + id, e);
+    }
+  }
+
+  /**
+   * Whether the record still holds a value; one whose off-heap chunk was freed while it was being
+   * serialized does not.
+   */
+  boolean hasValue() {
+    return value != null || data != null || offHeap != null;
+  }
+
+  /**
+   * Writes the value's serialized form in place of the live or off-heap value without storing it
+   * in the record, so a record that is serialized while cached keeps serving its value as before.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    byte[] bytes = data;
+    OffHeapValue offHeap = this.offHeap;
+    if (offHeap != null) {
+      ByteBuffer view = offHeap.view();
+      if (view != null) {
+        bytes = new byte[view.remaining()];
+        view.get(bytes);
+      }
+    } else if (bytes == null && value != null) {
+      bytes = serialize(value);
+    }
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("id", id);
+    fields.put("refreshTtl", ttl != null && ttl.isRefreshOnAccess());
+    fields.put("created", created);
+    fields.put("expires", expires);
+    fields.put("accessed", created);
+    fields.put("ttl", ttl == null ? NO_TTL : ttl.getNanos());
+    fields.put("data", bytes);
+    out.writeFields();
+  }
+
+  @SuppressWarnings("unchecked")
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    ObjectInputStream.GetField fields = in.readFields();
+    id = (K) fields.get("id", null);
+    created = fields.get("created", 0L);
+    expires = fields.get("expires", NO_EXPIRY);
+    long nanos = fields.get("ttl", NO_TTL);
+    if (nanos != NO_TTL) {
+      ttl = new RecordTtl(TimeUnit.NANOSECONDS.toMillis(nanos), fields.get("refreshTtl", false));
     }
+    data = (byte[]) fields.get("data", null);
   }
 
+  /**
+   * Converts a time read from the record's cache's ticker, or from {@link System#nanoTime()} for a
+   * record that has not been put in a cache since it was deserialized.
+   */
+  private ZonedDateTime toDateTime(long time) {
+    RecordContext<V> context = this.context;
+    Ticker ticker = context == null ? Ticker.systemTicker() : context.getTicker();
+    long offset = TimeUnit.NANOSECONDS.toMillis(time - ticker.read());
+    return Instant.ofEpochMilli(System.currentTimeMillis() + offset).atZone(ZoneId.systemDefault());
+  }
+
+  /**
+   * Where a record's value lives in an {@link OffHeapStore}. Only a record whose value was moved
+   * off heap carries one, so records kept on heap do not pay for the chunk's address and stamp.
+   */
+  private static final class OffHeapValue {
+
+    private final OffHeapStore store;
+    private final long address;
+    private final long stamp;
+
+    OffHeapValue(OffHeapStore store, long address) {
+      this.store = store;
+      this.address = address;
+      this.stamp = store.stamp(address);
+    }
 
-  private long calculateEpochTimeFromTtl(ZonedDateTime time, long ttl) {
-    return time.plus(ttl, ChronoField.MILLI_OF_DAY.getBaseUnit()).toInstant()
-        .toEpochMilli();
+    ByteBuffer view() {
+      return store.view(address, stamp);
+    }
+
+    boolean isValid() {
+      return store.isValid(address, stamp);
+    }
+
+    void free() {
+      store.free(address, stamp);
+    }
   }
 
 }
@@ -0,0 +1,112 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link StatsCounter} built from {@link LongAdder}s, so concurrent readers recording hits
+ * spread their updates over striped cells instead of contending on one counter.
+ *
+ * @author brent
+ * @since 8/8/18.
+ */
+final class ConcurrentStatsCounter implements StatsCounter {
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder expiredReads = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder[] removals = adders(RemovalCause.values().length);
+  private final LongAdder loadSuccesses = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder totalLoadTime = new LongAdder();
+  private final LongAdder[] loadTimes = adders(CacheStats.LOAD_TIME_BUCKETS);
+
+  @Override
+  public void recordHit() {
+    hits.increment();
+  }
+
+  @Override
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  @Override
+  public void recordExpiredRead() {
+    expiredReads.increment();
+  }
+
+  @Override
+  public void recordPut() {
+    puts.increment();
+  }
+
+  @Override
+  public void recordRemoval(RemovalCause cause) {
+    removals[cause.ordinal()].increment();
+  }
+
+  @Override
+  public void recordReads(int hits, int misses, int expiredReads) {
+    if (hits > 0) {
+      this.hits.add(hits);
+    }
+    if (misses > 0) {
+      this.misses.add(misses);
+    }
+    if (expiredReads > 0) {
+      this.expiredReads.add(expiredReads);
+    }
+  }
+
+  @Override
+  public void recordPuts(int count) {
+    puts.add(count);
+  }
+
+  @Override
+  public void recordRemovals(RemovalCause cause, int count) {
+    removals[cause.ordinal()].add(count);
+  }
+
+  @Override
+  public void recordLoadSuccess(long loadNanos) {
+    loadSuccesses.increment();
+    recordLoadTime(loadNanos);
+  }
+
+  @Override
+  public void recordLoadFailure(long loadNanos) {
+    loadFailures.increment();
+    recordLoadTime(loadNanos);
+  }
+
+  @Override
+  public CacheStats snapshot() {
+    return new CacheStats(hits.sum(), misses.sum(), expiredReads.sum(), puts.sum(), sums(removals),
+        loadSuccesses.sum(), loadFailures.sum(), totalLoadTime.sum(), sums(loadTimes));
+  }
+
+  private void recordLoadTime(long loadNanos) {
+    totalLoadTime.add(loadNanos);
+    loadTimes[CacheStats.loadTimeBucket(TimeUnit.NANOSECONDS.toMicros(loadNanos))].increment();
+  }
+
+  private static LongAdder[] adders(int length) {
+    LongAdder[] adders = new LongAdder[length];
+    for (int i = 0; i < length; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+  private static long[] sums(LongAdder[] adders) {
+    long[] sums = new long[adders.length];
+    for (int i = 0; i < adders.length; i++) {
+      sums[i] = adders[i].sum();
+    }
+    return sums;
+  }
+}
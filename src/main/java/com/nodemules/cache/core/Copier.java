@@ -0,0 +1,13 @@
+package com.nodemules.cache.core;
+
+/**
+ * Copies values in and out of a cache using {@link StorageMode#VALUE}.
+ *
+ * @author brent
+ * @since 7/30/18.
+ */
+@FunctionalInterface
+public interface Copier<V> {
+
+  V copy(V value);
+}
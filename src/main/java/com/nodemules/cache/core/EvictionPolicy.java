@@ -0,0 +1,65 @@
+package com.nodemules.cache.core;
+
+/**
+ * Decides which key a size-bounded {@link Cache} gives up when it grows past its maximum.
+ *
+ * <p>Implementations do not need to be thread-safe: the cache only calls them while holding its
+ * eviction lock, and replays reads to them in batches from a lossy read buffer, so the read path
+ * never waits on the policy.
+ *
+ * @author brent
+ * @since 7/31/18.
+ */
+public interface EvictionPolicy<K> {
+
+  /**
+   * Least recently used: evicts the key that has gone unread the longest.
+   */
+  static <K> EvictionPolicy<K> lru() {
+    return new LruPolicy<>();
+  }
+
+  /**
+   * Least frequently used: evicts the key read the fewest times, oldest first among ties.
+   */
+  static <K> EvictionPolicy<K> lfu() {
+    return new LfuPolicy<>();
+  }
+
+  /**
+   * Window TinyLFU: a small LRU admission window in front of a segmented LRU main region, where
+   * entries leaving the window are only admitted over the main region's victim if a count-min
+   * sketch says they are used more often. Resists both recency bursts and scans.
+   */
+  static <K> EvictionPolicy<K> windowTinyLfu() {
+    return new WindowTinyLfuPolicy<>();
+  }
+
+  /**
+   * Called once by the cache before use with the maximum number of entries it will hold.
+   */
+  default void initialize(long maximumSize) {
+  }
+
+  /**
+   * A key was added to the cache, or its record was replaced.
+   */
+  void onInsert(K key);
+
+  /**
+   * A key was read from the cache.
+   */
+  void onAccess(K key);
+
+  /**
+   * A key left the cache for any reason other than this policy's own eviction.
+   */
+  void onRemove(K key);
+
+  /**
+   * Selects a key to evict and stops tracking it.
+   *
+   * @return the key to evict, or null if the policy is tracking no keys
+   */
+  K evict();
+}
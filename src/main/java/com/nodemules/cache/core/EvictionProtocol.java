@@ -1,11 +1,17 @@
 package com.nodemules.cache.core;
 
 /**
+ * A single eviction pass over a cache, run periodically by its {@link CacheScheduler}.
+ *
  * @author brent
  * @since 7/29/18.
  */
 @FunctionalInterface
 public interface EvictionProtocol {
 
-  void evict(long evictionSleepTime);
+  /**
+   * @return the number of records removed by this pass; passes that remove nothing let the
+   * scheduler back off the interval until the next one
+   */
+  int evict(Cache<?, ?> cache);
 }
@@ -0,0 +1,38 @@
+package com.nodemules.cache.core;
+
+/**
+ * Decides how long each entry of a cache lives, from its key and value, when it is created,
+ * updated and read, e.g. a short time for a negative result and a long one for stable data.
+ * Durations are in milliseconds, like {@link Cache.CacheBuilder#ttl(long)}, and
+ * {@link #ETERNAL} means the entry never expires. Called on the thread putting or reading the
+ * entry, so it should be cheap.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+@FunctionalInterface
+public interface Expiry<K, V> {
+
+  long ETERNAL = Long.MAX_VALUE;
+
+  /**
+   * How long an entry put for a key that is not cached lives.
+   */
+  long expireAfterCreate(K key, V value);
+
+  /**
+   * How long an entry replacing a cached one lives, given the time the replaced entry had left.
+   * Starts over as if the entry were created by default.
+   */
+  default long expireAfterUpdate(K key, V value, long currentDuration) {
+    return expireAfterCreate(key, value);
+  }
+
+  /**
+   * How long an entry lives from the time it is read, given the time it had left. Leaves it
+   * unchanged by default.
+   */
+  default long expireAfterRead(K key, V value, long currentDuration) {
+    return currentDuration;
+  }
+}
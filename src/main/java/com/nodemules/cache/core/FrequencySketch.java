@@ -0,0 +1,81 @@
+package com.nodemules.cache.core;
+
+/**
+ * A count-min sketch of how often keys have been seen, packed as sixteen 4-bit counters per
+ * {@code long}. Counters saturate at 15 and are all halved once the sketch has recorded ten times
+ * as many increments as the cache holds entries, so frequencies age out over time.
+ *
+ * @author brent
+ * @since 7/31/18.
+ */
+class FrequencySketch<K> {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final long sampleSize;
+  private long size;
+
+  FrequencySketch(long maximumSize) {
+    int length = ceilingPowerOfTwo((int) Math.min(Math.max(maximumSize, 16), 1 << 30));
+    this.table = new long[length];
+    this.tableMask = length - 1;
+    this.sampleSize = 10 * Math.max(maximumSize, 16);
+  }
+
+  int frequency(K key) {
+    int hash = spread(key.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < SEEDS.length; i++) {
+      frequency = Math.min(frequency,
+          (int) ((table[indexOf(hash, i)] >>> offsetOf(hash, i)) & 0xfL));
+    }
+    return frequency;
+  }
+
+  void increment(K key) {
+    int hash = spread(key.hashCode());
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(hash, i);
+      int offset = offsetOf(hash, i);
+      if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size >>>= 1;
+  }
+
+  private int indexOf(int hash, int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    h += h >>> 32;
+    return (int) h & tableMask;
+  }
+
+  private static int offsetOf(int hash, int depth) {
+    return ((hash >>> (depth << 3)) & 0xf) << 2;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+}
@@ -0,0 +1,52 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A channel between caches in the same JVM, e.g. to stand in for several nodes in a test. Each
+ * cache joins with an {@link #endpoint()} of its own; a batch published on an endpoint is
+ * delivered to the listeners of every other endpoint on the publishing thread.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+public final class InProcessInvalidationBus<K extends Serializable> {
+
+  private final List<Endpoint> endpoints = new CopyOnWriteArrayList<>();
+
+  public InvalidationBus<K> endpoint() {
+    Endpoint endpoint = new Endpoint();
+    endpoints.add(endpoint);
+    return endpoint;
+  }
+
+  private final class Endpoint implements InvalidationBus<K> {
+
+    private final List<Consumer<Collection<K>>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Collection<K> keys) {
+      Collection<K> batch = Collections.unmodifiableCollection(keys);
+      for (Endpoint endpoint : endpoints) {
+        if (endpoint != this) {
+          endpoint.listeners.forEach(listener -> listener.accept(batch));
+        }
+      }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<K>> listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public void close() {
+      endpoints.remove(this);
+    }
+  }
+}
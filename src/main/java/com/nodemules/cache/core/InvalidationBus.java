@@ -0,0 +1,33 @@
+package com.nodemules.cache.core;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Carries the keys a cache has changed to the caches of other nodes, so that they drop their
+ * copies instead of serving stale values until they expire. Each cache is given its own bus, and
+ * a bus never delivers a node's batches back to that node.
+ *
+ * @author brent
+ * @since 8/16/18.
+ * @see Cache.CacheBuilder#invalidationBus(InvalidationBus)
+ * @see InProcessInvalidationBus
+ * @see MulticastInvalidationBus
+ */
+public interface InvalidationBus<K extends Serializable> extends AutoCloseable {
+
+  /**
+   * Sends a batch of keys to every other node on the bus.
+   */
+  void publish(Collection<K> keys) throws IOException;
+
+  /**
+   * Delivers the batches published by other nodes to the listener until the bus is closed.
+   */
+  void subscribe(Consumer<Collection<K>> listener);
+
+  @Override
+  void close();
+}
@@ -0,0 +1,170 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queues the keys a cache changes and publishes them on its {@link InvalidationBus} in batches
+ * from its {@link CacheScheduler}, so a burst of writes sends a few messages rather than one per
+ * write and no thread waits while nothing is queued. A key is queued at most once however often
+ * it changes before the next batch; a batch is published as soon as {@code batchSize} keys are
+ * queued, or once the oldest has waited {@code delay}. Closing publishes everything still queued
+ * before returning.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+final class InvalidationPublisher<K extends Serializable> implements AutoCloseable {
+
+  private static final long UNSCHEDULED = Long.MAX_VALUE;
+
+  private final InvalidationBus<K> bus;
+  private final int batchSize;
+  private final long delay;
+  private final CacheScheduler scheduler;
+  private final Set<K> queue = new LinkedHashSet<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Held while publishing, so closing waits for a flush in progress.
+   */
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private long oldest;
+  private long nextFlush = UNSCHEDULED;
+  private boolean closed;
+
+  InvalidationPublisher(InvalidationBus<K> bus, int batchSize, long delay,
+      CacheScheduler scheduler) {
+    this.bus = bus;
+    this.batchSize = Math.max(1, batchSize);
+    this.delay = TimeUnit.MILLISECONDS.toNanos(delay);
+    this.scheduler = scheduler;
+  }
+
+  void publish(K key) {
+    lock.lock();
+    try {
+      enqueue(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void publishAll(Iterable<? extends K> keys) {
+    lock.lock();
+    try {
+      keys.forEach(this::enqueue);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void enqueue(K key) {
+    if (closed) {
+      return;
+    }
+    long now = System.nanoTime();
+    if (queue.isEmpty()) {
+      oldest = now;
+    }
+    if (queue.add(key)) {
+      if (queue.size() == batchSize) {
+        flushAt(now);
+      } else if (queue.size() == 1) {
+        flushAt(oldest + delay);
+      }
+    }
+  }
+
+  /**
+   * Schedules a flush for the given time, unless one is already due by then.
+   */
+  private void flushAt(long time) {
+    if (nextFlush != UNSCHEDULED && time - nextFlush >= 0) {
+      return;
+    }
+    nextFlush = time;
+    scheduler.schedule(this::flush, Math.max(0L, time - System.nanoTime()),
+        TimeUnit.NANOSECONDS);
+  }
+
+  private void flush() {
+    flushLock.lock();
+    try {
+      while (true) {
+        List<K> batch;
+        lock.lock();
+        try {
+          nextFlush = UNSCHEDULED;
+          if (!isDue()) {
+            if (!queue.isEmpty()) {
+              flushAt(oldest + delay);
+            }
+            return;
+          }
+          batch = drain(batchSize);
+        } finally {
+          lock.unlock();
+        }
+        send(batch);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private void send(List<K> batch) {
+    try {
+      bus.publish(batch);
+    } catch (Exception e) {
+      log.error("Failed to publish {} invalidations; other nodes keep them until they expire",
+          batch.size(), e);
+    }
+  }
+
+  private boolean isDue() {
+    return queue.size() >= batchSize
+        || !queue.isEmpty() && System.nanoTime() - oldest >= delay;
+  }
+
+  private List<K> drain(int limit) {
+    List<K> batch = new ArrayList<>(Math.min(queue.size(), limit));
+    Iterator<K> iterator = queue.iterator();
+    while (iterator.hasNext() && batch.size() < limit) {
+      batch.add(iterator.next());
+      iterator.remove();
+    }
+    oldest = System.nanoTime();
+    return batch;
+  }
+
+  /**
+   * Publishes every queued key, after any flush in progress, and drops keys queued from then on.
+   */
+  @Override
+  public void close() {
+    flushLock.lock();
+    try {
+      List<K> remaining;
+      lock.lock();
+      try {
+        closed = true;
+        remaining = drain(Integer.MAX_VALUE);
+      } finally {
+        lock.unlock();
+      }
+      for (int from = 0; from < remaining.size(); from += batchSize) {
+        send(remaining.subList(from, Math.min(from + batchSize, remaining.size())));
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+}
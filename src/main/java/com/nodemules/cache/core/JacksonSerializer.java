@@ -0,0 +1,49 @@
+package com.nodemules.cache.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Serializer} backed by a Jackson mapper. The reader and writer are resolved once for the
+ * value type, so each call only does the actual conversion.
+ *
+ * @author brent
+ * @since 8/11/18.
+ */
+final class JacksonSerializer<V> implements Serializer<V> {
+
+  static final ObjectMapper JSON = new ObjectMapper();
+  static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  JacksonSerializer(ObjectMapper mapper, Class<V> type) {
+    this.reader = mapper.readerFor(type);
+    this.writer = mapper.writerFor(type);
+  }
+
+  @Override
+  public byte[] serialize(V value) throws IOException {
+    return writer.writeValueAsBytes(value);
+  }
+
+  @Override
+  public V deserialize(byte[] bytes) throws IOException {
+    return reader.readValue(bytes);
+  }
+
+  @Override
+  public V deserialize(ByteBuffer buffer) throws IOException {
+    if (buffer.hasArray()) {
+      return reader.readValue(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+    }
+    return reader.readValue(new ByteBufferBackedInputStream(buffer));
+  }
+}
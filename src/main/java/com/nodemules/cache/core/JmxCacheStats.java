@@ -0,0 +1,138 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registers a cache's statistics as an MXBean on the platform MBean server, taking a fresh
+ * snapshot for each attribute read. The MBean server holds the bean for as long as it is
+ * registered, so the bean only holds its cache weakly; a cache discarded without being closed can
+ * still be collected, and the first read after that unregisters the bean and reads as empty.
+ *
+ * @author brent
+ * @since 8/8/18.
+ */
+@Slf4j
+final class JmxCacheStats implements CacheStatsMXBean, AutoCloseable {
+
+  private final WeakReference<Cache<?, ?>> cache;
+  private final ObjectName name;
+
+  private JmxCacheStats(Cache<?, ?> cache, ObjectName name) {
+    this.cache = new WeakReference<>(cache);
+    this.name = name;
+  }
+
+  static JmxCacheStats register(Cache<?, ?> cache, String name) {
+    try {
+      ObjectName objectName = new ObjectName(
+          "com.nodemules.cache:type=Cache,name=" + ObjectName.quote(name));
+      JmxCacheStats stats = new JmxCacheStats(cache, objectName);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(stats, objectName);
+      return stats;
+    } catch (JMException e) {
+      throw new IllegalArgumentException("Could not register cache statistics as " + name, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+    } catch (JMException e) {
+      log.warn("Could not unregister {}", name, e);
+    }
+  }
+
+  private CacheStats stats() {
+    Cache<?, ?> target = cache.get();
+    if (target == null) {
+      close();
+      return CacheStats.empty();
+    }
+    return target.stats();
+  }
+
+  @Override
+  public long getSize() {
+    Cache<?, ?> target = cache.get();
+    if (target == null) {
+      close();
+      return 0L;
+    }
+    return target.size();
+  }
+
+  @Override
+  public long getHitCount() {
+    return stats().getHitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return stats().getMissCount();
+  }
+
+  @Override
+  public double getHitRate() {
+    return stats().hitRate();
+  }
+
+  @Override
+  public long getExpiredReadCount() {
+    return stats().getExpiredReadCount();
+  }
+
+  @Override
+  public long getPutCount() {
+    return stats().getPutCount();
+  }
+
+  @Override
+  public long getEvictionCount() {
+    return stats().evictionCount();
+  }
+
+  @Override
+  public long getExpiredCount() {
+    return stats().removalCount(RemovalCause.EXPIRED);
+  }
+
+  @Override
+  public long getSizeEvictionCount() {
+    return stats().removalCount(RemovalCause.SIZE);
+  }
+
+  @Override
+  public long getWeightEvictionCount() {
+    return stats().removalCount(RemovalCause.WEIGHTED);
+  }
+
+  @Override
+  public long getExplicitRemovalCount() {
+    return stats().removalCount(RemovalCause.EXPLICIT);
+  }
+
+  @Override
+  public long getLoadSuccessCount() {
+    return stats().getLoadSuccessCount();
+  }
+
+  @Override
+  public long getLoadFailureCount() {
+    return stats().getLoadFailureCount();
+  }
+
+  @Override
+  public double getAverageLoadPenalty() {
+    return stats().averageLoadPenalty();
+  }
+}
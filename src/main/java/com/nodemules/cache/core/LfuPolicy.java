@@ -0,0 +1,70 @@
+package com.nodemules.cache.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @author brent
+ * @since 7/31/18.
+ */
+class LfuPolicy<K> implements EvictionPolicy<K> {
+
+  private final Map<K, Long> frequencies = new HashMap<>();
+  private final TreeMap<Long, LinkedHashSet<K>> buckets = new TreeMap<>();
+
+  @Override
+  public void onInsert(K key) {
+    if (frequencies.containsKey(key)) {
+      onAccess(key);
+      return;
+    }
+    frequencies.put(key, 1L);
+    buckets.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+  }
+
+  @Override
+  public void onAccess(K key) {
+    Long frequency = frequencies.get(key);
+    if (frequency == null) {
+      return;
+    }
+    unlink(key, frequency);
+    frequencies.put(key, frequency + 1);
+    buckets.computeIfAbsent(frequency + 1, f -> new LinkedHashSet<>()).add(key);
+  }
+
+  @Override
+  public void onRemove(K key) {
+    Long frequency = frequencies.remove(key);
+    if (frequency != null) {
+      unlink(key, frequency);
+    }
+  }
+
+  @Override
+  public K evict() {
+    Map.Entry<Long, LinkedHashSet<K>> lowest = buckets.firstEntry();
+    if (lowest == null) {
+      return null;
+    }
+    Iterator<K> iterator = lowest.getValue().iterator();
+    K victim = iterator.next();
+    iterator.remove();
+    if (lowest.getValue().isEmpty()) {
+      buckets.remove(lowest.getKey());
+    }
+    frequencies.remove(victim);
+    return victim;
+  }
+
+  private void unlink(K key, long frequency) {
+    LinkedHashSet<K> bucket = buckets.get(frequency);
+    bucket.remove(key);
+    if (bucket.isEmpty()) {
+      buckets.remove(frequency);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link Cache} that computes missing values with a {@link CacheLoader}. Concurrent misses for
+ * the same key wait on a single in-flight load instead of each calling the loader, and a batch of
+ * misses passed to {@link #getAll(Iterable)} is loaded with one call to
+ * {@link CacheLoader#loadAll(Iterable)}.
+ *
+ * <p>With {@code refreshAfterWrite} set, a read of an entry older than that age returns the
+ * current value and starts a single background reload on the builder's executor, so hot keys are
+ * renewed without any caller waiting for the loader.
+ *
+ * @author brent
+ * @since 8/5/18.
+ */
+@Slf4j
+public abstract class LoadingCache<K extends Serializable, V> extends Cache<K, V> {
+
+  private final CacheLoader<? super K, V> loader;
+  private final Map<K, CachedRecord<K, V>> refreshes = new ConcurrentHashMap<>();
+  private final Executor executor;
+
+  LoadingCache(CacheBuilder<K, V> builder, CacheLoader<? super K, V> loader) {
+    super(builder);
+    if (loader == null) {
+      throw new IllegalArgumentException("A LoadingCache requires a CacheLoader");
+    }
+    this.loader = loader;
+    this.executor = builder.loadExecutor();
+  }
+
+  /**
+   * Returns the cached value without loading it on a miss.
+   */
+  public V getIfPresent(K key) {
+    return super.get(key);
+  }
+
+  /**
+   * Returns the cached value, loading it on a miss.
+   *
+   * @throws CacheLoaderException if the loader failed
+   */
+  @Override
+  public V get(K key) {
+    return get(key, loader);
+  }
+
+  /**
+   * Returns the values of the given keys, loading every key that is neither cached nor already
+   * being loaded with a single call to {@link CacheLoader#loadAll(Iterable)}. Keys without a value
+   * are left out of the result.
+   *
+   * @throws CacheLoaderException if the loader failed
+   */
+  @Override
+  public Map<K, V> getAll(Iterable<? extends K> keys) {
+    List<K> requested = new ArrayList<>();
+    keys.forEach(requested::add);
+    Map<K, V> values = super.getAll(requested);
+    Map<K, CompletableFuture<V>> waiting = new LinkedHashMap<>();
+    Map<K, CompletableFuture<V>> claimed = new LinkedHashMap<>();
+    for (K key : requested) {
+      if (values.containsKey(key) || waiting.containsKey(key) || claimed.containsKey(key)) {
+        continue;
+      }
+      CompletableFuture<V> load = new CompletableFuture<>();
+      CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+      if (inFlight == null) {
+        claimed.put(key, load);
+      } else {
+        waiting.put(key, inFlight);
+      }
+    }
+    if (!claimed.isEmpty()) {
+      loadAll(claimed);
+    }
+    for (Map.Entry<K, CompletableFuture<V>> entry : claimed.entrySet()) {
+      putIfNotNull(values, entry.getKey(), join(entry.getKey(), entry.getValue()));
+    }
+    for (Map.Entry<K, CompletableFuture<V>> entry : waiting.entrySet()) {
+      putIfNotNull(values, entry.getKey(), join(entry.getKey(), entry.getValue()));
+    }
+    return values;
+  }
+
+  @Override
+  void refresh(CachedRecord<K, V> record) {
+    K key = record.getId();
+    if (refreshes.putIfAbsent(key, record) != null) {
+      return;
+    }
+    try {
+      executor.execute(() -> {
+        try {
+          V value = load(key);
+          boolean refreshed = value == null
+              ? remove(record, RemovalCause.EXPLICIT)
+              : replaceLoaded(record, valueRecord(key, value));
+          if (!refreshed) {
+            log.trace("Discarding refresh of replaced entry -> {}", key);
+          }
+        } catch (Exception e) {
+          log.warn("Failed to refresh {}, keeping the current value", key, e);
+        } finally {
+          refreshes.remove(key, record);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      refreshes.remove(key, record);
+      log.warn("Failed to schedule refresh of {}", key, e);
+    }
+  }
+
+  private void loadAll(Map<K, CompletableFuture<V>> claimed) {
+    try {
+      List<K> missing = new ArrayList<>(claimed.size());
+      for (Map.Entry<K, CompletableFuture<V>> entry : claimed.entrySet()) {
+        V value = get(entry.getKey(), false);
+        if (value == null) {
+          missing.add(entry.getKey());
+        } else {
+          entry.getValue().complete(value);
+        }
+      }
+      Map<? super K, V> loaded = missing.isEmpty()
+          ? new LinkedHashMap<>() : loadAll(missing);
+      log.trace("Loaded {} of {} missing keys", loaded.size(), missing.size());
+      for (K key : missing) {
+        V value = loaded.get(key);
+        if (value != null) {
+          putLoaded(key, value, claimed.get(key));
+        }
+        claimed.get(key).complete(value);
+      }
+    } catch (Exception e) {
+      claimed.values().forEach(load -> load.completeExceptionally(e));
+    } finally {
+      claimed.forEach(loads::remove);
+    }
+  }
+
+  V load(K key) throws Exception {
+    return load(key, loader);
+  }
+
+  /**
+   * Calls the loader for a batch of keys, recording it in the cache's statistics as one load.
+   */
+  Map<? super K, V> loadAll(List<K> keys) throws Exception {
+    long start = System.nanoTime();
+    try {
+      Map<? super K, V> values = loader.loadAll(keys);
+      statsCounter().recordLoadSuccess(System.nanoTime() - start);
+      return values;
+    } catch (Exception e) {
+      statsCounter().recordLoadFailure(System.nanoTime() - start);
+      throw e;
+    }
+  }
+
+  private static <K, V> void putIfNotNull(Map<K, V> values, K key, V value) {
+    if (value != null) {
+      values.put(key, value);
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.nodemules.cache.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author brent
+ * @since 8/9/18.
+ */
+@Slf4j
+final class LoggingCacheEventListener implements CacheEventListener<Object> {
+
+  private static final LoggingCacheEventListener INSTANCE = new LoggingCacheEventListener();
+
+  private LoggingCacheEventListener() {
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K> CacheEventListener<K> instance() {
+    return (CacheEventListener<K>) (CacheEventListener<?>) INSTANCE;
+  }
+
+  @Override
+  public void onEvent(EventType type, Object key) {
+    if (log.isTraceEnabled()) {
+      log.trace("{} -> {}", type, key);
+    }
+  }
+}
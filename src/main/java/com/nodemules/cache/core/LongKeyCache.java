@@ -0,0 +1,588 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A cache keyed by primitive {@code long}s, for large caches of numeric IDs where a boxed key, a
+ * map node and a {@link CachedRecord} per entry outweigh the values themselves. Entries live in
+ * open-addressing hash tables holding keys, values and expiry times in parallel arrays, so an
+ * entry costs its slots in those arrays and nothing else, and {@link #get(long)} never boxes.
+ *
+ * <p>Keys are split over independent segments, each guarded by a {@link StampedLock}. Reads
+ * are optimistic and only take the read lock if a write to the same segment raced with them.
+ * Values are held by reference and must not be null.
+ *
+ * <p>Expired entries are removed when read, a few slots at a time by every write to their
+ * segment, and all at once by {@link #cleanUp()}, which a cache with a TTL also has run
+ * periodically by its {@link CacheScheduler} until it is closed.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+public final class LongKeyCache<V> implements AutoCloseable {
+
+  private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+  private static final long DEFAULT_EVICTION_SLEEP_TIME = 5000L;
+  private static final int MIN_SEGMENT_CAPACITY = 16;
+  private static final int SWEEP_SLOTS = 4;
+  private static final long NO_EXPIRY = Long.MAX_VALUE;
+
+  private final Segment<V>[] segments;
+  private final int segmentShift;
+  private final long ttl;
+  private final boolean refreshTtl;
+  private final Ticker ticker;
+  private final StatsCounter statsCounter;
+  private final List<RemovalListener<Long, V>> removalListeners;
+  private final RemovalDispatcher<Long, V> removalDispatcher;
+  private final CacheScheduler.Registration registration;
+
+  private LongKeyCache(LongKeyCacheBuilder<V> builder) {
+    this.ttl = builder.ttl == null ? 0 : TimeUnit.MILLISECONDS.toNanos(builder.ttl);
+    this.refreshTtl = builder.refreshTtlOnAccess && ttl > 0;
+    this.ticker = builder.ticker;
+    this.statsCounter = builder.recordStats
+        ? new ConcurrentStatsCounter() : StatsCounter.disabled();
+    this.removalListeners = new ArrayList<>(builder.removalListeners);
+    this.removalDispatcher = new RemovalDispatcher<>(removalListeners, builder.removalExecutor,
+        false);
+    int count = ceilingPowerOfTwo(Math.min(Math.max(1, builder.concurrencyLevel), 1 << 16));
+    this.segmentShift = 32 - Integer.numberOfTrailingZeros(count);
+    int capacity = ceilingPowerOfTwo(Math.max(MIN_SEGMENT_CAPACITY,
+        (int) Math.min(1 << 30, (long) builder.initialCapacity * 4 / 3 / count + 1)));
+    @SuppressWarnings("unchecked")
+    Segment<V>[] segments = (Segment<V>[]) new Segment<?>[count];
+    this.segments = segments;
+    for (int i = 0; i < count; i++) {
+      segments[i] = new Segment<>(capacity, ttl > 0);
+    }
+    if (ttl > 0) {
+      CacheScheduler scheduler = builder.scheduler == null
+          ? CacheScheduler.shared() : builder.scheduler;
+      this.registration = scheduler.register(this, LongKeyCache::sweep,
+          builder.evictionSleepTime);
+    } else {
+      this.registration = null;
+    }
+  }
+
+  public static <V> LongKeyCacheBuilder<V> builder() {
+    return new LongKeyCacheBuilder<>();
+  }
+
+  /**
+   * The value for the key, or null if it is absent or has expired.
+   */
+  public V get(long key) {
+    int hash = spread(key);
+    Segment<V> segment = segmentFor(hash);
+    StampedLock lock = segment.lock;
+    long stamp = lock.tryOptimisticRead();
+    Table<V> table = segment.table;
+    int index = table.indexOf(key, hash);
+    V value = index < 0 ? null : table.valueAt(index);
+    long expires = index < 0 || table.expires == null ? NO_EXPIRY : table.expires[index];
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        table = segment.table;
+        index = table.indexOf(key, hash);
+        value = index < 0 ? null : table.valueAt(index);
+        expires = index < 0 || table.expires == null ? NO_EXPIRY : table.expires[index];
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    if (value == null) {
+      statsCounter.recordMiss();
+      return null;
+    }
+    if (expires != NO_EXPIRY) {
+      long now = ticker.read();
+      if (now > expires) {
+        statsCounter.recordMiss();
+        statsCounter.recordExpiredRead();
+        expire(segment, key, hash, now);
+        return null;
+      }
+      if (refreshTtl && now + ttl - expires > (ttl >>> 6)) {
+        refresh(segment, key, hash, now + ttl);
+      }
+    }
+    statsCounter.recordHit();
+    return value;
+  }
+
+  /**
+   * Maps the key to the value, expiring after the cache's TTL if it has one.
+   *
+   * @return the value previously mapped to the key, or null if there was none or it had expired
+   */
+  public V put(long key, V value) {
+    if (value == null) {
+      throw new NullPointerException("LongKeyCache does not hold null values");
+    }
+    int hash = spread(key);
+    Segment<V> segment = segmentFor(hash);
+    long now = ttl > 0 ? ticker.read() : 0;
+    long expires = ttl > 0 ? now + ttl : NO_EXPIRY;
+    V previous;
+    long previousExpires;
+    List<RemovalEvent<Long, V>> expired;
+    long stamp = segment.lock.writeLock();
+    try {
+      Table<V> table = segment.table;
+      int index = table.indexOf(key, hash);
+      if (index < 0) {
+        previous = null;
+        previousExpires = NO_EXPIRY;
+        if (segment.size + 1 > table.threshold()) {
+          table = segment.resize();
+        }
+        table.insert(key, hash, value, expires);
+        segment.size++;
+      } else {
+        previous = table.valueAt(index);
+        previousExpires = table.expires == null ? NO_EXPIRY : table.expires[index];
+        table.values[index] = value;
+        if (table.expires != null) {
+          table.expires[index] = expires;
+        }
+      }
+      expired = ttl > 0 ? segment.sweep(now, SWEEP_SLOTS) : Collections.emptyList();
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+    statsCounter.recordPut();
+    notifyRemovals(expired, RemovalCause.EXPIRED);
+    return previous == null || now > previousExpires ? null : previous;
+  }
+
+  /**
+   * Removes the key, notifying the removal listeners if it was present.
+   */
+  public void invalidate(long key) {
+    int hash = spread(key);
+    Segment<V> segment = segmentFor(hash);
+    V removed;
+    long stamp = segment.lock.writeLock();
+    try {
+      removed = segment.remove(key, hash);
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+    if (removed != null) {
+      notifyRemovals(Collections.singletonList(new RemovalEvent<>(key, removed,
+          RemovalCause.EXPLICIT)), RemovalCause.EXPLICIT);
+    }
+  }
+
+  /**
+   * Removes every entry, notifying the removal listeners of each.
+   */
+  public void invalidateAll() {
+    for (Segment<V> segment : segments) {
+      List<RemovalEvent<Long, V>> removed;
+      long stamp = segment.lock.writeLock();
+      try {
+        removed = segment.clear();
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+      notifyRemovals(removed, RemovalCause.EXPLICIT);
+    }
+  }
+
+  /**
+   * Removes every expired entry on the calling thread.
+   */
+  public void cleanUp() {
+    sweep();
+  }
+
+  /**
+   * Stops the periodic removal of expired entries.
+   */
+  @Override
+  public void close() {
+    if (registration != null) {
+      registration.close();
+    }
+  }
+
+  /**
+   * @return the number of expired entries removed
+   */
+  private int sweep() {
+    if (ttl == 0) {
+      return 0;
+    }
+    int removed = 0;
+    for (Segment<V> segment : segments) {
+      List<RemovalEvent<Long, V>> expired;
+      long stamp = segment.lock.writeLock();
+      try {
+        expired = segment.sweep(ticker.read(), segment.table.values.length);
+      } finally {
+        segment.lock.unlockWrite(stamp);
+      }
+      notifyRemovals(expired, RemovalCause.EXPIRED);
+      removed += expired.size();
+    }
+    return removed;
+  }
+
+  /**
+   * The number of entries, including expired entries that have not been removed yet.
+   */
+  public long size() {
+    long size = 0;
+    for (Segment<V> segment : segments) {
+      long stamp = segment.lock.readLock();
+      try {
+        size += segment.size;
+      } finally {
+        segment.lock.unlockRead(stamp);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * A snapshot of this cache's statistics; all zero unless the cache was built with
+   * {@link LongKeyCacheBuilder#recordStats()}.
+   */
+  public CacheStats stats() {
+    return statsCounter.snapshot();
+  }
+
+  /**
+   * Removes the key if its entry has expired by {@code now}, unless a write has replaced it.
+   */
+  private void expire(Segment<V> segment, long key, int hash, long now) {
+    V removed = null;
+    long stamp = segment.lock.writeLock();
+    try {
+      Table<V> table = segment.table;
+      int index = table.indexOf(key, hash);
+      if (index >= 0 && now > table.expires[index]) {
+        removed = segment.remove(key, hash);
+      }
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+    if (removed != null) {
+      notifyRemovals(Collections.singletonList(new RemovalEvent<>(key, removed,
+          RemovalCause.EXPIRED)), RemovalCause.EXPIRED);
+    }
+  }
+
+  /**
+   * Extends the key's expiry if the segment's lock is free; a contended refresh is skipped, to be
+   * made by a later read.
+   */
+  private void refresh(Segment<V> segment, long key, int hash, long expires) {
+    long stamp = segment.lock.tryWriteLock();
+    if (stamp == 0) {
+      return;
+    }
+    try {
+      Table<V> table = segment.table;
+      int index = table.indexOf(key, hash);
+      if (index >= 0 && expires > table.expires[index]) {
+        table.expires[index] = expires;
+      }
+    } finally {
+      segment.lock.unlockWrite(stamp);
+    }
+  }
+
+  private void notifyRemovals(List<RemovalEvent<Long, V>> events, RemovalCause cause) {
+    if (events.isEmpty()) {
+      return;
+    }
+    statsCounter.recordRemovals(cause, events.size());
+    if (!removalListeners.isEmpty()) {
+      removalDispatcher.dispatch(events);
+    }
+  }
+
+  private Segment<V> segmentFor(int hash) {
+    return segmentShift == 32 ? segments[0] : segments[hash >>> segmentShift];
+  }
+
+  private static int spread(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  private static int ceilingPowerOfTwo(int n) {
+    return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+  }
+
+  /**
+   * A segment's table and the lock guarding it. The table is replaced, never resized in place,
+   * so an optimistic reader always sees arrays of matching length.
+   */
+  private static final class Segment<V> {
+
+    private final StampedLock lock = new StampedLock();
+    private final boolean expiring;
+    private Table<V> table;
+    private int size;
+    private int sweepIndex;
+
+    Segment(int capacity, boolean expiring) {
+      this.expiring = expiring;
+      this.table = new Table<>(capacity, expiring);
+    }
+
+    Table<V> resize() {
+      Table<V> resized = new Table<>(table.values.length * 2, expiring);
+      for (int i = 0; i < table.values.length; i++) {
+        if (table.values[i] != null) {
+          resized.insert(table.keys[i], spread(table.keys[i]), table.valueAt(i),
+              expiring ? table.expires[i] : NO_EXPIRY);
+        }
+      }
+      sweepIndex = 0;
+      table = resized;
+      return resized;
+    }
+
+    V remove(long key, int hash) {
+      int index = table.indexOf(key, hash);
+      if (index < 0) {
+        return null;
+      }
+      V removed = table.valueAt(index);
+      table.removeAt(index);
+      size--;
+      return removed;
+    }
+
+    /**
+     * Removes the expired entries among the next {@code slots} slots after the last sweep.
+     */
+    List<RemovalEvent<Long, V>> sweep(long now, int slots) {
+      List<RemovalEvent<Long, V>> expired = null;
+      int mask = table.values.length - 1;
+      int index = sweepIndex;
+      for (int i = 0; i < slots; i++) {
+        // removing shifts a later entry back into this slot, so check it again
+        while (table.values[index] != null && now > table.expires[index]) {
+          if (expired == null) {
+            expired = new ArrayList<>();
+          }
+          expired.add(new RemovalEvent<>(table.keys[index], table.valueAt(index),
+              RemovalCause.EXPIRED));
+          table.removeAt(index);
+          size--;
+        }
+        index = (index + 1) & mask;
+      }
+      sweepIndex = index;
+      return expired == null ? Collections.emptyList() : expired;
+    }
+
+    List<RemovalEvent<Long, V>> clear() {
+      List<RemovalEvent<Long, V>> removed = new ArrayList<>(size);
+      for (int i = 0; i < table.values.length; i++) {
+        if (table.values[i] != null) {
+          removed.add(new RemovalEvent<>(table.keys[i], table.valueAt(i),
+              RemovalCause.EXPLICIT));
+        }
+      }
+      table = new Table<>(table.values.length, expiring);
+      size = 0;
+      sweepIndex = 0;
+      return removed;
+    }
+  }
+
+  /**
+   * A linear-probing table; a null value marks an empty slot, so every long is a valid key.
+   * Removal shifts later entries of the probe sequence back rather than leaving tombstones.
+   */
+  private static final class Table<V> {
+
+    private final long[] keys;
+    private final Object[] values;
+    private final long[] expires;
+    private final int mask;
+
+    Table(int capacity, boolean expiring) {
+      this.keys = new long[capacity];
+      this.values = new Object[capacity];
+      this.expires = expiring ? new long[capacity] : null;
+      this.mask = capacity - 1;
+    }
+
+    int threshold() {
+      return values.length / 4 * 3;
+    }
+
+    @SuppressWarnings("unchecked")
+    V valueAt(int index) {
+      return (V) values[index];
+    }
+
+    /**
+     * The slot holding the key, or -1. Gives up after a full lap, which only an optimistic reader
+     * racing a writer can take.
+     */
+    int indexOf(long key, int hash) {
+      int index = hash & mask;
+      for (int probes = 0; probes <= mask; probes++) {
+        if (values[index] == null) {
+          return -1;
+        }
+        if (keys[index] == key) {
+          return index;
+        }
+        index = (index + 1) & mask;
+      }
+      return -1;
+    }
+
+    void insert(long key, int hash, V value, long expiry) {
+      int index = hash & mask;
+      while (values[index] != null) {
+        index = (index + 1) & mask;
+      }
+      keys[index] = key;
+      values[index] = value;
+      if (expires != null) {
+        expires[index] = expiry;
+      }
+    }
+
+    void removeAt(int index) {
+      int hole = index;
+      int next = index;
+      while (true) {
+        next = (next + 1) & mask;
+        if (values[next] == null) {
+          break;
+        }
+        int home = spread(keys[next]) & mask;
+        // the entry at next may fill the hole only if its home slot is not between them
+        if (((next - home) & mask) >= ((next - hole) & mask)) {
+          keys[hole] = keys[next];
+          values[hole] = values[next];
+          if (expires != null) {
+            expires[hole] = expires[next];
+          }
+          hole = next;
+        }
+      }
+      values[hole] = null;
+    }
+  }
+
+  public static final class LongKeyCacheBuilder<V> {
+
+    private Long ttl;
+    private boolean refreshTtlOnAccess;
+    private Ticker ticker = Ticker.systemTicker();
+    private int concurrencyLevel = DEFAULT_CONCURRENCY_LEVEL;
+    private int initialCapacity;
+    private boolean recordStats;
+    private final List<RemovalListener<Long, V>> removalListeners = new ArrayList<>();
+    private Executor removalExecutor;
+    private long evictionSleepTime = DEFAULT_EVICTION_SLEEP_TIME;
+    private CacheScheduler scheduler;
+
+    private LongKeyCacheBuilder() {
+    }
+
+    /**
+     * Expires entries the given number of milliseconds after they were put.
+     */
+    public LongKeyCacheBuilder<V> ttl(long ttl) {
+      this.ttl = ttl;
+      return this;
+    }
+
+    /**
+     * Restarts an entry's TTL whenever it is read.
+     */
+    public LongKeyCacheBuilder<V> refreshTtlOnAccess(boolean refreshTtlOnAccess) {
+      this.refreshTtlOnAccess = refreshTtlOnAccess;
+      return this;
+    }
+
+    public LongKeyCacheBuilder<V> ticker(Ticker ticker) {
+      this.ticker = ticker;
+      return this;
+    }
+
+    /**
+     * The number of independently locked segments, rounded up to a power of two; defaults to
+     * 16.
+     */
+    public LongKeyCacheBuilder<V> concurrencyLevel(int concurrencyLevel) {
+      this.concurrencyLevel = concurrencyLevel;
+      return this;
+    }
+
+    /**
+     * Sizes the tables to hold the given number of entries without growing.
+     */
+    public LongKeyCacheBuilder<V> initialCapacity(int initialCapacity) {
+      this.initialCapacity = initialCapacity;
+      return this;
+    }
+
+    /**
+     * Records hits, misses, puts and removals by cause, available from
+     * {@link LongKeyCache#stats()}.
+     */
+    public LongKeyCacheBuilder<V> recordStats() {
+      this.recordStats = true;
+      return this;
+    }
+
+    public LongKeyCacheBuilder<V> removalListener(RemovalListener<Long, V> removalListener) {
+      this.removalListeners.add(removalListener);
+      return this;
+    }
+
+    /**
+     * Delivers removal events on the given executor; see
+     * {@link Cache.CacheBuilder#removalExecutor(Executor)}.
+     */
+    public LongKeyCacheBuilder<V> removalExecutor(Executor removalExecutor) {
+      this.removalExecutor = removalExecutor;
+      return this;
+    }
+
+    /**
+     * How often, in milliseconds, a cache with a TTL removes its expired entries in the
+     * background; defaults to every 5 seconds.
+     */
+    public LongKeyCacheBuilder<V> evictionSleepTime(long evictionSleepTime) {
+      this.evictionSleepTime = evictionSleepTime;
+      return this;
+    }
+
+    /**
+     * Removes expired entries in the background on the given scheduler instead of the shared
+     * one.
+     */
+    public LongKeyCacheBuilder<V> scheduler(CacheScheduler scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    public LongKeyCache<V> build() {
+      return new LongKeyCache<>(this);
+    }
+  }
+}
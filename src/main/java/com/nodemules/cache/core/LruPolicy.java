@@ -0,0 +1,39 @@
+package com.nodemules.cache.core;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * @author brent
+ * @since 7/31/18.
+ */
+class LruPolicy<K> implements EvictionPolicy<K> {
+
+  private final LinkedHashMap<K, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Override
+  public void onInsert(K key) {
+    order.put(key, Boolean.TRUE);
+  }
+
+  @Override
+  public void onAccess(K key) {
+    order.get(key);
+  }
+
+  @Override
+  public void onRemove(K key) {
+    order.remove(key);
+  }
+
+  @Override
+  public K evict() {
+    Iterator<K> iterator = order.keySet().iterator();
+    if (!iterator.hasNext()) {
+      return null;
+    }
+    K victim = iterator.next();
+    iterator.remove();
+    return victim;
+  }
+}
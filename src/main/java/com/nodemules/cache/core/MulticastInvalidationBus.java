@@ -0,0 +1,230 @@
+package com.nodemules.cache.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.Serializable;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Publishes batches of keys as UDP datagrams to a multicast group that every node joins, and
+ * delivers the batches of other nodes from a receiving thread of its own. Keys are written with
+ * Java serialization, and a datagram is only read when every class in it is a key type the bus
+ * was given, or a string, number, boolean, character or {@link UUID}; anything else is dropped.
+ * A batch too large for one datagram is split over several.
+ *
+ * <p>UDP does not guarantee delivery, so a node may miss an invalidation and keep a stale entry
+ * until it expires; give the caches a TTL to bound that. {@link #loopback(int, Class[])} keeps
+ * datagrams on the loopback interface, for caches in several JVMs of one machine or in tests.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public final class MulticastInvalidationBus<K extends Serializable> implements
+    InvalidationBus<K> {
+
+  /**
+   * Datagram size kept under a typical Ethernet MTU, so a datagram is never fragmented.
+   */
+  static final int MAX_DATAGRAM = 1400;
+  private static final String LOOPBACK_GROUP = "239.255.27.1";
+  private static final AtomicInteger THREADS = new AtomicInteger();
+  private static final List<Class<?>> DEFAULT_KEY_TYPES = Arrays.asList(String.class,
+      Number.class, Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class,
+      Boolean.class, Character.class, UUID.class);
+
+  private final InetSocketAddress group;
+  private final MulticastSocket socket;
+  private final UUID node = UUID.randomUUID();
+  private final Set<String> keyTypes = new HashSet<>();
+  private final List<Consumer<Collection<K>>> listeners = new CopyOnWriteArrayList<>();
+  private final Thread thread;
+  private volatile boolean closed;
+
+  /**
+   * Joins the group on the given interface, or the system's default one if null. Keys of other
+   * than the default types are only read if their classes, and the classes of any objects they
+   * hold, are among the given key types.
+   */
+  public MulticastInvalidationBus(InetSocketAddress group, NetworkInterface networkInterface,
+      Class<?>... keyTypes) throws IOException {
+    this.group = group;
+    DEFAULT_KEY_TYPES.forEach(this::allow);
+    Arrays.asList(keyTypes).forEach(this::allow);
+    this.socket = new MulticastSocket(group.getPort());
+    try {
+      if (networkInterface != null) {
+        socket.setNetworkInterface(networkInterface);
+      }
+      socket.joinGroup(group, networkInterface);
+    } catch (IOException e) {
+      socket.close();
+      throw e;
+    }
+    this.thread = new Thread(this::receive, "cache-invalidation-" + THREADS.incrementAndGet());
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * A bus on the loopback interface, reaching every other loopback bus of the same port on this
+   * machine.
+   */
+  public static <K extends Serializable> MulticastInvalidationBus<K> loopback(int port,
+      Class<?>... keyTypes) throws IOException {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    return new MulticastInvalidationBus<>(
+        new InetSocketAddress(InetAddress.getByName(LOOPBACK_GROUP), port),
+        NetworkInterface.getByInetAddress(loopback), keyTypes);
+  }
+
+  /**
+   * Allows the class and its superclasses, whose descriptors are read along with it.
+   */
+  private void allow(Class<?> keyType) {
+    for (Class<?> type = keyType; type != null && type != Object.class;
+        type = type.getSuperclass()) {
+      keyTypes.add(type.getName());
+    }
+  }
+
+  @Override
+  public void publish(Collection<K> keys) throws IOException {
+    List<K> batch = new ArrayList<>(keys);
+    send(batch, encode(batch));
+  }
+
+  /**
+   * Sends the encoded batch, halving batches that do not fit in one datagram.
+   */
+  private void send(List<K> batch, byte[] datagram) throws IOException {
+    if (datagram.length > MAX_DATAGRAM && batch.size() > 1) {
+      List<K> head = new ArrayList<>(batch.subList(0, batch.size() / 2));
+      List<K> tail = new ArrayList<>(batch.subList(batch.size() / 2, batch.size()));
+      send(head, encode(head));
+      send(tail, encode(tail));
+      return;
+    }
+    socket.send(new DatagramPacket(datagram, datagram.length, group));
+  }
+
+  private byte[] encode(List<K> batch) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeLong(node.getMostSignificantBits());
+      out.writeLong(node.getLeastSignificantBits());
+      out.writeInt(batch.size());
+      try (ObjectOutputStream keys = new ObjectOutputStream(out)) {
+        for (K key : batch) {
+          keys.writeObject(key);
+        }
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private void receive() {
+    byte[] buffer = new byte[65_536];
+    while (!closed) {
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        socket.receive(packet);
+        Collection<K> keys = decode(packet);
+        if (keys != null) {
+          listeners.forEach(listener -> listener.accept(keys));
+        }
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        if (!closed) {
+          log.warn("Dropping an invalidation that could not be read", e);
+        }
+      } catch (RuntimeException e) {
+        log.error("Invalidation listener failed", e);
+      }
+    }
+  }
+
+  /**
+   * The keys of a datagram, or null for one this node sent itself.
+   */
+  @SuppressWarnings("unchecked")
+  private Collection<K> decode(DatagramPacket packet) throws IOException, ClassNotFoundException {
+    DataInputStream in = new DataInputStream(
+        new ByteArrayInputStream(packet.getData(), packet.getOffset(), packet.getLength()));
+    UUID sender = new UUID(in.readLong(), in.readLong());
+    if (sender.equals(node)) {
+      return null;
+    }
+    int count = in.readInt();
+    if (count < 0 || count > packet.getLength()) {
+      throw new IOException("Invalid batch size " + count);
+    }
+    List<K> batch = new ArrayList<>(count);
+    try (ObjectInputStream keys = new KeyInputStream(in)) {
+      for (int i = 0; i < count; i++) {
+        batch.add((K) keys.readObject());
+      }
+    }
+    return batch;
+  }
+
+  /**
+   * Refuses to read any class that is not an allowed key type, before anything of it is created.
+   */
+  private final class KeyInputStream extends ObjectInputStream {
+
+    private KeyInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass descriptor)
+        throws IOException, ClassNotFoundException {
+      if (!keyTypes.contains(descriptor.getName())) {
+        throw new InvalidClassException(descriptor.getName(), "Not an allowed key type");
+      }
+      return super.resolveClass(descriptor);
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Collection<K>> listener) {
+    listeners.add(listener);
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    socket.close();
+    if (Thread.currentThread() == thread) {
+      return;
+    }
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
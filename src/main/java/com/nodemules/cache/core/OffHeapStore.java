@@ -0,0 +1,207 @@
+package com.nodemules.cache.core;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import lombok.extern.slf4j.Slf4j;
+import sun.misc.Unsafe;
+
+/**
+ * A slab allocator keeping serialized values outside the Java heap, in direct or memory-mapped
+ * {@link ByteBuffer} pages of 1MiB. Each page is carved into equal chunks of one power-of-two size
+ * class, from 64 bytes up to a whole page, and freed chunks are reused by their class. Values that
+ * do not fit in a page, or arrive once every page has been handed out with no free chunk left in
+ * their class, are refused and the caller keeps them on heap.
+ *
+ * <p>Every chunk starts with a stamp identifying its current allocation and the payload length.
+ * Reads are not locked: a reader checks the stamp before and after deserializing, and treats a
+ * chunk that was freed or reused in the meantime as a miss. Allocation and freeing are
+ * synchronized. As in a seqlock, a store fence after each stamp write keeps the payload written
+ * for a new allocation from becoming visible before its stamp, and a load fence before the
+ * re-check keeps the payload read from being reordered after it.
+ *
+ * @author brent
+ * @since 8/10/18.
+ */
+@Slf4j
+final class OffHeapStore implements AutoCloseable {
+
+  static final long NO_ADDRESS = -1L;
+
+  private static final int PAGE_SHIFT = 20;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final int MIN_CHUNK_SHIFT = 6;
+  private static final int CLASSES = PAGE_SHIFT - MIN_CHUNK_SHIFT + 1;
+  private static final int HEADER = Long.BYTES + Integer.BYTES;
+  private static final long FREE = 0L;
+  private static final Unsafe UNSAFE = unsafe();
+
+  private final ByteBuffer[] pages;
+  private final FileChannel channel;
+  private final long[][] free = new long[CLASSES][];
+  private final int[] freeCount = new int[CLASSES];
+  private int pageCount;
+  private long nextStamp = 1L;
+
+  OffHeapStore(long capacity, Path file) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Off-heap capacity must be positive -> " + capacity);
+    }
+    this.pages = new ByteBuffer[(int) ((capacity + PAGE_SIZE - 1) >>> PAGE_SHIFT)];
+    for (int i = 0; i < CLASSES; i++) {
+      free[i] = new long[16];
+    }
+    if (file == null) {
+      this.channel = null;
+    } else {
+      try {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Could not open off-heap file " + file, e);
+      }
+    }
+  }
+
+  /**
+   * The number of bytes a value of the given length occupies in the store, header included.
+   */
+  static int chunkSize(int length) {
+    return 1 << (sizeClass(length) + MIN_CHUNK_SHIFT);
+  }
+
+  /**
+   * Copies the bytes into a free chunk.
+   *
+   * @return the chunk's address, or {@link #NO_ADDRESS} if the store has no room for them
+   */
+  synchronized long allocate(byte[] bytes) {
+    int sizeClass = sizeClass(bytes.length);
+    if (sizeClass >= CLASSES) {
+      return NO_ADDRESS;
+    }
+    if (freeCount[sizeClass] == 0 && !addPage(sizeClass)) {
+      return NO_ADDRESS;
+    }
+    long address = free[sizeClass][--freeCount[sizeClass]];
+    ByteBuffer page = pages[page(address)];
+    int offset = offset(address);
+    page.putLong(offset, nextStamp++);
+    UNSAFE.storeFence();
+    page.putInt(offset + Long.BYTES, bytes.length);
+    ByteBuffer chunk = page.duplicate();
+    chunk.position(offset + HEADER);
+    chunk.put(bytes);
+    return address;
+  }
+
+  /**
+   * Returns the chunk to its size class, unless it has already been freed since the allocation
+   * identified by the stamp.
+   */
+  synchronized void free(long address, long stamp) {
+    ByteBuffer page = pages[page(address)];
+    int offset = offset(address);
+    if (page.getLong(offset) != stamp) {
+      return;
+    }
+    page.putLong(offset, FREE);
+    UNSAFE.storeFence();
+    push(sizeClass(page.getInt(offset + Long.BYTES)), address);
+  }
+
+  long stamp(long address) {
+    return pages[page(address)].getLong(offset(address));
+  }
+
+  /**
+   * A read-only view of the chunk's payload, or null if the allocation identified by the stamp has
+   * been freed. The view must be revalidated with {@link #isValid(long, long)} after it is read.
+   */
+  ByteBuffer view(long address, long stamp) {
+    ByteBuffer page = pages[page(address)];
+    int offset = offset(address);
+    if (page.getLong(offset) != stamp) {
+      return null;
+    }
+    UNSAFE.loadFence();
+    int length = page.getInt(offset + Long.BYTES);
+    ByteBuffer view = page.asReadOnlyBuffer();
+    view.limit(offset + HEADER + length);
+    view.position(offset + HEADER);
+    return view;
+  }
+
+  boolean isValid(long address, long stamp) {
+    UNSAFE.loadFence();
+    return pages[page(address)].getLong(offset(address)) == stamp;
+  }
+
+  @Override
+  public void close() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Could not close off-heap file", e);
+      }
+    }
+  }
+
+  private boolean addPage(int sizeClass) {
+    if (pageCount == pages.length) {
+      return false;
+    }
+    ByteBuffer page;
+    try {
+      page = channel == null ? ByteBuffer.allocateDirect(PAGE_SIZE)
+          : channel.map(MapMode.READ_WRITE, (long) pageCount << PAGE_SHIFT, PAGE_SIZE);
+    } catch (IOException e) {
+      log.error("Could not map off-heap page {}", pageCount, e);
+      return false;
+    }
+    int index = pageCount++;
+    pages[index] = page;
+    int chunkSize = 1 << (sizeClass + MIN_CHUNK_SHIFT);
+    for (int offset = PAGE_SIZE - chunkSize; offset >= 0; offset -= chunkSize) {
+      push(sizeClass, ((long) index << 32) | offset);
+    }
+    return true;
+  }
+
+  private void push(int sizeClass, long address) {
+    if (freeCount[sizeClass] == free[sizeClass].length) {
+      free[sizeClass] = Arrays.copyOf(free[sizeClass], free[sizeClass].length * 2);
+    }
+    free[sizeClass][freeCount[sizeClass]++] = address;
+  }
+
+  private static int sizeClass(int length) {
+    int size = length + HEADER;
+    int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+    return Math.max(0, shift - MIN_CHUNK_SHIFT);
+  }
+
+  private static Unsafe unsafe() {
+    try {
+      Field field = Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return (Unsafe) field.get(null);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private static int page(long address) {
+    return (int) (address >>> 32);
+  }
+
+  private static int offset(long address) {
+    return (int) address;
+  }
+}
@@ -0,0 +1,86 @@
+package com.nodemules.cache.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * A lossy, striped buffer of reads waiting to be replayed to an {@link EvictionPolicy}. Readers
+ * append with a single CAS on their own stripe and simply drop the event when the stripe is full
+ * or contended; losing a few reads only makes the policy slightly less accurate. Draining must be
+ * done by one thread at a time.
+ *
+ * @author brent
+ * @since 7/31/18.
+ */
+final class ReadBuffer<E> {
+
+  private static final int STRIPES = ceilingPowerOfTwo(
+      Math.min(64, 4 * Runtime.getRuntime().availableProcessors()));
+  private static final int BUFFER_SIZE = 16;
+  private static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+  private final Stripe<E>[] stripes;
+
+  @SuppressWarnings("unchecked")
+  ReadBuffer() {
+    stripes = (Stripe<E>[]) new Stripe<?>[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe<>();
+    }
+  }
+
+  /**
+   * @return true if the calling thread's stripe is full and the buffer should be drained
+   */
+  boolean offer(E e) {
+    int hash = (int) Thread.currentThread().getId() * 0x9e3779b9;
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)].offer(e);
+  }
+
+  void drainTo(Consumer<E> consumer) {
+    for (Stripe<E> stripe : stripes) {
+      stripe.drainTo(consumer);
+    }
+  }
+
+  private static final class Stripe<E> {
+
+    private final AtomicLong writeCounter = new AtomicLong();
+    private final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(BUFFER_SIZE);
+    private volatile long readCounter;
+
+    boolean offer(E e) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      long size = tail - head;
+      if (size >= BUFFER_SIZE) {
+        return true;
+      }
+      if (writeCounter.compareAndSet(tail, tail + 1)) {
+        buffer.lazySet((int) tail & BUFFER_MASK, e);
+        return size + 1 >= BUFFER_SIZE;
+      }
+      return false;
+    }
+
+    void drainTo(Consumer<E> consumer) {
+      long head = readCounter;
+      long tail = writeCounter.get();
+      for (; head < tail; head++) {
+        int index = (int) head & BUFFER_MASK;
+        E e = buffer.get(index);
+        if (e == null) {
+          break;
+        }
+        buffer.lazySet(index, null);
+        consumer.accept(e);
+      }
+      readCounter = head;
+    }
+  }
+
+  private static int ceilingPowerOfTwo(int x) {
+    return 1 << -Integer.numberOfLeadingZeros(x - 1);
+  }
+}
@@ -0,0 +1,29 @@
+package com.nodemules.cache.core;
+
+/**
+ * What every record of a cache shares: the ticker its times are read from and the serializer
+ * of its stored values, or null for JSON. The cache holds one and its records refer to it, so
+ * {@link CachedRecord#isExpired()} and {@link CachedRecord#getValue()} work on a record held
+ * outside the cache without each record copying the cache's settings.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+final class RecordContext<V> {
+
+  private final Ticker ticker;
+  private final Serializer<V> serializer;
+
+  RecordContext(Ticker ticker, Serializer<V> serializer) {
+    this.ticker = ticker;
+    this.serializer = serializer;
+  }
+
+  Ticker getTicker() {
+    return ticker;
+  }
+
+  Serializer<V> getSerializer() {
+    return serializer;
+  }
+}
@@ -0,0 +1,32 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A TTL and whether reads extend it. A cache keeps one for all of its records; a record only
+ * carries one of its own when its constructor was given a TTL.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+final class RecordTtl implements Serializable {
+
+  private static final long serialVersionUID = 3129817564906375215L;
+
+  private final long nanos;
+  private final boolean refreshOnAccess;
+
+  RecordTtl(long ttl, boolean refreshOnAccess) {
+    this.nanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+    this.refreshOnAccess = refreshOnAccess;
+  }
+
+  long getNanos() {
+    return nanos;
+  }
+
+  boolean isRefreshOnAccess() {
+    return refreshOnAccess;
+  }
+}
@@ -0,0 +1,111 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers a cache's removal events to its listeners through
+ * {@link RemovalListener#onRemovalBatch(List)}. Without an executor a batch is delivered on the
+ * thread that removed its entries. With one, events are queued and a single task at a time drains
+ * the queue on the executor, so removals made on any number of threads reach each listener in
+ * order, in batches of up to {@value #MAX_BATCH}, and the removing threads never wait on a
+ * listener.
+ *
+ * <p>A record whose value is held off heap is released once every listener has been handed its
+ * event, keeping a serialized copy of the value on heap in case a listener reads it later.
+ *
+ * @author brent
+ * @since 8/15/18.
+ */
+@Slf4j
+final class RemovalDispatcher<K extends Serializable, V> {
+
+  private static final int MAX_BATCH = 1024;
+
+  private final List<RemovalListener<K, V>> listeners;
+  private final Executor executor;
+  private final boolean offHeap;
+  private final Queue<RemovalEvent<K, V>> pending = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  RemovalDispatcher(List<RemovalListener<K, V>> listeners, Executor executor, boolean offHeap) {
+    this.listeners = listeners;
+    this.executor = executor;
+    this.offHeap = offHeap;
+  }
+
+  void dispatch(RemovalEvent<K, V> event) {
+    dispatch(Collections.singletonList(event));
+  }
+
+  void dispatch(List<RemovalEvent<K, V>> events) {
+    if (executor == null) {
+      try {
+        for (RemovalListener<K, V> listener : listeners) {
+          listener.onRemovalBatch(events);
+        }
+      } finally {
+        release(events);
+      }
+      return;
+    }
+    pending.addAll(events);
+    schedule();
+  }
+
+  private void schedule() {
+    if (!scheduled.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      executor.execute(this::drain);
+    } catch (RejectedExecutionException e) {
+      log.warn("Removal executor rejected delivery, delivering on the calling thread", e);
+      drain();
+    }
+  }
+
+  private void drain() {
+    try {
+      List<RemovalEvent<K, V>> batch = new ArrayList<>();
+      RemovalEvent<K, V> event;
+      while (batch.size() < MAX_BATCH && (event = pending.poll()) != null) {
+        batch.add(event);
+      }
+      if (batch.isEmpty()) {
+        return;
+      }
+      for (RemovalListener<K, V> listener : listeners) {
+        try {
+          listener.onRemovalBatch(batch);
+        } catch (RuntimeException e) {
+          log.error("Removal listener failed for {} removals", batch.size(), e);
+        }
+      }
+      release(batch);
+    } finally {
+      scheduled.set(false);
+      if (!pending.isEmpty()) {
+        schedule();
+      }
+    }
+  }
+
+  private void release(List<RemovalEvent<K, V>> events) {
+    if (offHeap) {
+      for (RemovalEvent<K, V> event : events) {
+        if (event.getRecord() != null) {
+          event.getRecord().moveOnHeap();
+        }
+      }
+    }
+  }
+}
@@ -1,22 +1,54 @@
 package com.nodemules.cache.core;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
+ * An entry removed from a cache. The value is only read from the removed record, deserializing
+ * it if the cache stores values serialized, the first time a listener asks for it.
+ *
  * @author brent
  * @since 7/29/18.
  */
-@Getter
-@AllArgsConstructor
 public class RemovalEvent<K, V> {
 
-  private K id;
-  private V value;
-//  private RemovalCause removalCause;
+  @Getter
+  private final K id;
+  @Getter
+  private final RemovalCause removalCause;
+  private final CachedRecord<?, V> record;
+  private volatile V value;
+
+  public RemovalEvent(K id, V value, RemovalCause removalCause) {
+    this.id = id;
+    this.value = value;
+    this.removalCause = removalCause;
+    this.record = null;
+  }
+
+  RemovalEvent(K id, CachedRecord<?, V> record, RemovalCause removalCause) {
+    this.id = id;
+    this.record = record;
+    this.removalCause = removalCause;
+  }
+
+  public V getValue() {
+    V value = this.value;
+    if (value == null && record != null) {
+      value = record.getValue();
+      this.value = value;
+    }
+    return value;
+  }
+
+  /**
+   * The removed record, or null for an event built from a value.
+   */
+  CachedRecord<?, V> getRecord() {
+    return record;
+  }
 
   public enum RemovalCause {
-    EXPIRED, WEIGHTED, SIZE;
+    EXPIRED, WEIGHTED, SIZE, EXPLICIT;
   }
 
 }
@@ -1,6 +1,7 @@
 package com.nodemules.cache.core;
 
 import java.io.Serializable;
+import java.util.List;
 
 /**
  * @author brent
@@ -9,4 +10,15 @@ import java.io.Serializable;
 public interface RemovalListener<K extends Serializable, V> {
 
   void onRemoval(RemovalEvent<K, V> event);
+
+  /**
+   * Receives removals in the order they happened, as many at a time as the cache has to deliver:
+   * all the entries one maintenance cycle or bulk invalidation removed, or, when listeners are
+   * notified on a removal executor, everything removed since the last delivery. Defaults to
+   * calling {@link #onRemoval(RemovalEvent)} for each, so listeners that can handle a batch at
+   * once should override it.
+   */
+  default void onRemovalBatch(List<RemovalEvent<K, V>> events) {
+    events.forEach(this::onRemoval);
+  }
 }
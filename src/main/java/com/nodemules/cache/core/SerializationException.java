@@ -0,0 +1,16 @@
+package com.nodemules.cache.core;
+
+/**
+ * Thrown when a value cannot be converted to or from the bytes a cache stores for it.
+ *
+ * @author brent
+ * @since 8/11/18.
+ */
+public class SerializationException extends RuntimeException {
+
+  private static final long serialVersionUID = -4473025170151366728L;
+
+  public SerializationException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
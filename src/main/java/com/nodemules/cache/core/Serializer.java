@@ -0,0 +1,59 @@
+package com.nodemules.cache.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts values to and from the bytes a cache keeps when it stores values by value or off heap,
+ * and uses to weigh entries by default. Caches without a serializer use JSON, reading values back
+ * as the class their {@link CachedRecord} asks for.
+ *
+ * @author brent
+ * @since 8/11/18.
+ */
+public interface Serializer<V> {
+
+  byte[] serialize(V value) throws IOException;
+
+  V deserialize(byte[] bytes) throws IOException;
+
+  /**
+   * Reads a value from the buffer's remaining bytes. Serializers that can parse a buffer in place
+   * should override this; the default copies it to an array first.
+   */
+  default V deserialize(ByteBuffer buffer) throws IOException {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return deserialize(bytes);
+  }
+
+  /**
+   * JSON through a shared {@link ObjectMapper}.
+   */
+  static <V> Serializer<V> json(Class<V> type) {
+    return new JacksonSerializer<>(JacksonSerializer.JSON, type);
+  }
+
+  /**
+   * JSON, or any other format the mapper's factory writes, through the given mapper.
+   */
+  static <V> Serializer<V> jackson(ObjectMapper mapper, Class<V> type) {
+    return new JacksonSerializer<>(mapper, type);
+  }
+
+  /**
+   * Smile, Jackson's binary JSON, which is smaller and faster to parse than text JSON.
+   */
+  static <V> Serializer<V> smile(Class<V> type) {
+    return new JacksonSerializer<>(JacksonSerializer.SMILE, type);
+  }
+
+  /**
+   * Stores {@code byte[]} values as they are, for callers that already hold serialized payloads;
+   * the arrays are copied in and out, so callers never share them with the cache.
+   */
+  static Serializer<byte[]> bytes() {
+    return ByteArraySerializer.INSTANCE;
+  }
+}
@@ -0,0 +1,94 @@
+package com.nodemules.cache.core;
+
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+
+/**
+ * Accumulates a cache's statistics. Caches built without {@code recordStats()} use a counter that
+ * does nothing, so the calls on the hot path compile away.
+ *
+ * @author brent
+ * @since 8/8/18.
+ */
+interface StatsCounter {
+
+  void recordHit();
+
+  void recordMiss();
+
+  /**
+   * A read that found its entry expired; also counted as a miss.
+   */
+  void recordExpiredRead();
+
+  void recordPut();
+
+  void recordRemoval(RemovalCause cause);
+
+  /**
+   * Records the outcome of a bulk read in one update per counter.
+   */
+  void recordReads(int hits, int misses, int expiredReads);
+
+  void recordPuts(int count);
+
+  void recordRemovals(RemovalCause cause, int count);
+
+  void recordLoadSuccess(long loadNanos);
+
+  void recordLoadFailure(long loadNanos);
+
+  CacheStats snapshot();
+
+  static StatsCounter disabled() {
+    return DisabledStatsCounter.INSTANCE;
+  }
+
+  enum DisabledStatsCounter implements StatsCounter {
+    INSTANCE;
+
+    @Override
+    public void recordHit() {
+    }
+
+    @Override
+    public void recordMiss() {
+    }
+
+    @Override
+    public void recordExpiredRead() {
+    }
+
+    @Override
+    public void recordPut() {
+    }
+
+    @Override
+    public void recordRemoval(RemovalCause cause) {
+    }
+
+    @Override
+    public void recordReads(int hits, int misses, int expiredReads) {
+    }
+
+    @Override
+    public void recordPuts(int count) {
+    }
+
+    @Override
+    public void recordRemovals(RemovalCause cause, int count) {
+    }
+
+    @Override
+    public void recordLoadSuccess(long loadNanos) {
+    }
+
+    @Override
+    public void recordLoadFailure(long loadNanos) {
+    }
+
+    @Override
+    public CacheStats snapshot() {
+      return CacheStats.empty();
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.nodemules.cache.core;
+
+/**
+ * How a {@link Cache} holds the values of its records.
+ *
+ * @author brent
+ * @since 7/30/18.
+ */
+public enum StorageMode {
+
+  /**
+   * The cache keeps a live reference to the value; a hit returns the same instance that was put.
+   */
+  REFERENCE,
+
+  /**
+   * The cache keeps a private copy of the value; a hit returns a copy, so callers can never mutate
+   * the cached state. Copies are made with the configured {@link Copier}, or from an immutable
+   * snapshot serialized as JSON, or with the configured {@link Serializer}, when no copier is
+   * set.
+   */
+  VALUE
+}
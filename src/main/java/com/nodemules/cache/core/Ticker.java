@@ -0,0 +1,38 @@
+package com.nodemules.cache.core;
+
+/**
+ * A source of nanosecond time for expiring records. Only differences between readings are
+ * meaningful, as with {@link System#nanoTime()}.
+ *
+ * @author brent
+ * @since 8/4/18.
+ */
+@FunctionalInterface
+public interface Ticker {
+
+  long read();
+
+  /**
+   * Reads {@link System#nanoTime()} directly.
+   */
+  static Ticker systemTicker() {
+    return SystemTicker.INSTANCE;
+  }
+
+  /**
+   * Reads a clock cached by the shared {@link CacheScheduler}'s timer thread, trading up to its
+   * resolution in expiry precision for a plain volatile read.
+   */
+  static Ticker coarseTicker() {
+    return CacheScheduler.shared().ticker();
+  }
+
+  enum SystemTicker implements Ticker {
+    INSTANCE;
+
+    @Override
+    public long read() {
+      return System.nanoTime();
+    }
+  }
+}
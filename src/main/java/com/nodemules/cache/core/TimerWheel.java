@@ -0,0 +1,143 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel of records ordered by expiry time. Each wheel covers a coarser span
+ * of time than the one below it, and as time advances the buckets that have come due are emptied,
+ * expiring their records or cascading them down into a finer wheel. Advancing therefore only
+ * touches records in buckets that are due, instead of scanning the whole cache.
+ *
+ * <p>Records are linked into their bucket intrusively through {@link CachedRecord}. A record whose
+ * expiry was pushed back by a TTL refresh is simply rescheduled when its old bucket comes due.
+ * Times are {@link Ticker} nanoseconds, measured from the time the wheel was created so that
+ * tick arithmetic is unaffected by the sign of {@link System#nanoTime()}. Not thread-safe; the
+ * cache only uses it while holding its eviction lock.
+ *
+ * @author brent
+ * @since 8/2/18.
+ */
+final class TimerWheel<K extends Serializable, V> {
+
+  /**
+   * Bucket counts per wheel; the last wheel is a single overflow bucket.
+   */
+  private static final int[] BUCKETS = {64, 64, 64, 64, 16, 1};
+
+  /**
+   * Nanoseconds spanned by one bucket of each wheel: ~67ms, ~4.3s, ~4.6m, ~4.9h, ~13d, ~208d.
+   */
+  private static final long[] SPANS = {
+      1L << 26, 1L << 32, 1L << 38, 1L << 44, 1L << 50, 1L << 54};
+  private static final int[] SHIFT = {26, 32, 38, 44, 50, 54};
+
+  private final Sentinel<K, V>[][] wheel;
+  private final long origin;
+  private long time;
+
+  @SuppressWarnings("unchecked")
+  TimerWheel(long now) {
+    this.origin = now;
+    this.time = now;
+    this.wheel = (Sentinel<K, V>[][]) new Sentinel<?, ?>[BUCKETS.length][];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = (Sentinel<K, V>[]) new Sentinel<?, ?>[BUCKETS[i]];
+      for (int j = 0; j < wheel[i].length; j++) {
+        wheel[i][j] = new Sentinel<>();
+      }
+    }
+  }
+
+  void schedule(CachedRecord<K, V> record) {
+    deschedule(record);
+    link(findBucket(Math.max(record.getExpires(), time)), record);
+  }
+
+  void deschedule(CachedRecord<K, V> record) {
+    if (record.nextInTimer != null) {
+      record.previousInTimer.nextInTimer = record.nextInTimer;
+      record.nextInTimer.previousInTimer = record.previousInTimer;
+      record.nextInTimer = null;
+      record.previousInTimer = null;
+    }
+  }
+
+  /**
+   * Advances the wheel to the given time, passing every record that has expired by then to the
+   * consumer and rescheduling records whose expiry has since been extended.
+   */
+  void advance(long now, Consumer<CachedRecord<K, V>> expired) {
+    long previous = time;
+    time = now;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = (previous - origin) >>> SHIFT[i];
+      long currentTicks = (now - origin) >>> SHIFT[i];
+      if (currentTicks - previousTicks <= 0L) {
+        break;
+      }
+      expire(i, previousTicks, currentTicks, now, expired);
+    }
+  }
+
+  private void expire(int index, long previousTicks, long currentTicks, long now,
+      Consumer<CachedRecord<K, V>> expired) {
+    Sentinel<K, V>[] buckets = wheel[index];
+    int mask = buckets.length - 1;
+    long steps = Math.min(1 + currentTicks - previousTicks, buckets.length);
+    int start = (int) (previousTicks & mask);
+    for (int i = start; i < start + steps; i++) {
+      Sentinel<K, V> sentinel = buckets[i & mask];
+      CachedRecord<K, V> record = sentinel.nextInTimer;
+      sentinel.previousInTimer = sentinel;
+      sentinel.nextInTimer = sentinel;
+      while (record != sentinel) {
+        CachedRecord<K, V> next = record.nextInTimer;
+        record.previousInTimer = null;
+        record.nextInTimer = null;
+        if (record.isExpired(now)) {
+          expired.accept(record);
+        } else {
+          link(findBucket(record.getExpires()), record);
+        }
+        record = next;
+      }
+    }
+  }
+
+  private Sentinel<K, V> findBucket(long expires) {
+    long duration = expires - time;
+    int last = wheel.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        long ticks = (expires - origin) >>> SHIFT[i];
+        return wheel[i][(int) (ticks & (wheel[i].length - 1))];
+      }
+    }
+    return wheel[last][0];
+  }
+
+  private static <K extends Serializable, V> void link(Sentinel<K, V> sentinel,
+      CachedRecord<K, V> record) {
+    record.previousInTimer = sentinel.previousInTimer;
+    record.nextInTimer = sentinel;
+    sentinel.previousInTimer.nextInTimer = record;
+    sentinel.previousInTimer = record;
+  }
+
+  private static final class Sentinel<K extends Serializable, V> extends CachedRecord<K, V> {
+
+    private static final long serialVersionUID = 1L;
+
+    Sentinel() {
+      super(null, null);
+      previousInTimer = this;
+      nextInTimer = this;
+    }
+
+    @Override
+    public V getValue() {
+      return null;
+    }
+  }
+}
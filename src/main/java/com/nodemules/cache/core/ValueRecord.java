@@ -0,0 +1,30 @@
+package com.nodemules.cache.core;
+
+import java.io.Serializable;
+
+/**
+ * A record for a value the cache created itself, such as one returned by a {@link CacheLoader},
+ * rather than one the caller wrapped in its own {@link CachedRecord} subclass. It reads its value
+ * back as the value's runtime class, so it is only used where values are kept live, copied, or
+ * serialized with a {@link Serializer}.
+ *
+ * @author brent
+ * @since 8/5/18.
+ */
+final class ValueRecord<K extends Serializable, V> extends CachedRecord<K, V> {
+
+  private static final long serialVersionUID = -1875092373458093460L;
+
+  private final Class<V> type;
+
+  @SuppressWarnings("unchecked")
+  ValueRecord(K id, V value) {
+    super(id, value);
+    this.type = (Class<V>) value.getClass();
+  }
+
+  @Override
+  public V getValue() {
+    return getValue(type);
+  }
+}
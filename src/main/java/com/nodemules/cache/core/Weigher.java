@@ -0,0 +1,14 @@
+package com.nodemules.cache.core;
+
+/**
+ * Computes the weight of an entry for a cache bounded by {@code maximumWeight}. Weights are
+ * computed once, when the entry is put, and must not be negative.
+ *
+ * @author brent
+ * @since 8/1/18.
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+  int weigh(K key, V value);
+}
@@ -0,0 +1,146 @@
+package com.nodemules.cache.core;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * @author brent
+ * @since 7/31/18.
+ */
+class WindowTinyLfuPolicy<K> implements EvictionPolicy<K> {
+
+  private static final double WINDOW_PERCENTAGE = 0.01d;
+  private static final double PROTECTED_PERCENTAGE = 0.80d;
+
+  private enum Region {
+    WINDOW, PROBATION, PROTECTED
+  }
+
+  private final Map<K, Region> regions = new HashMap<>();
+  private final LinkedHashSet<K> window = new LinkedHashSet<>();
+  private final LinkedHashSet<K> probation = new LinkedHashSet<>();
+  private final LinkedHashSet<K> protectedRegion = new LinkedHashSet<>();
+  /**
+   * Keys demoted from the window that have yet to be weighed against the probation victim; a
+   * subset of probation, so it never outgrows the cache.
+   */
+  private final LinkedHashSet<K> candidates = new LinkedHashSet<>();
+
+  private FrequencySketch<K> sketch = new FrequencySketch<>(16);
+  private long maximumWindow = 1;
+  private long maximumProtected = Long.MAX_VALUE;
+
+  @Override
+  public void initialize(long maximumSize) {
+    this.sketch = new FrequencySketch<>(maximumSize);
+    this.maximumWindow = Math.max(1, (long) (maximumSize * WINDOW_PERCENTAGE));
+    this.maximumProtected = (long) ((maximumSize - maximumWindow) * PROTECTED_PERCENTAGE);
+  }
+
+  @Override
+  public void onInsert(K key) {
+    sketch.increment(key);
+    if (regions.containsKey(key)) {
+      touch(key);
+      return;
+    }
+    window.add(key);
+    regions.put(key, Region.WINDOW);
+    if (window.size() > maximumWindow) {
+      K demoted = poll(window);
+      probation.add(demoted);
+      regions.put(demoted, Region.PROBATION);
+      candidates.add(demoted);
+    }
+  }
+
+  @Override
+  public void onAccess(K key) {
+    sketch.increment(key);
+    touch(key);
+  }
+
+  @Override
+  public void onRemove(K key) {
+    Region region = regions.remove(key);
+    if (region != null) {
+      regionOf(region).remove(key);
+      candidates.remove(key);
+    }
+  }
+
+  @Override
+  public K evict() {
+    if (!candidates.isEmpty()) {
+      K candidate = poll(candidates);
+      K victim = probation.iterator().next();
+      if (!victim.equals(candidate) && sketch.frequency(candidate) > sketch.frequency(victim)) {
+        return remove(victim);
+      }
+      return remove(candidate);
+    }
+    if (!probation.isEmpty()) {
+      return remove(probation.iterator().next());
+    }
+    if (!protectedRegion.isEmpty()) {
+      return remove(protectedRegion.iterator().next());
+    }
+    if (!window.isEmpty()) {
+      return remove(window.iterator().next());
+    }
+    return null;
+  }
+
+  private void touch(K key) {
+    Region region = regions.get(key);
+    if (region == null) {
+      return;
+    }
+    switch (region) {
+      case WINDOW:
+        window.remove(key);
+        window.add(key);
+        break;
+      case PROBATION:
+        probation.remove(key);
+        candidates.remove(key);
+        protectedRegion.add(key);
+        regions.put(key, Region.PROTECTED);
+        if (protectedRegion.size() > maximumProtected) {
+          K demoted = poll(protectedRegion);
+          probation.add(demoted);
+          regions.put(demoted, Region.PROBATION);
+        }
+        break;
+      case PROTECTED:
+        protectedRegion.remove(key);
+        protectedRegion.add(key);
+        break;
+    }
+  }
+
+  private K remove(K key) {
+    onRemove(key);
+    return key;
+  }
+
+  private LinkedHashSet<K> regionOf(Region region) {
+    switch (region) {
+      case WINDOW:
+        return window;
+      case PROBATION:
+        return probation;
+      default:
+        return protectedRegion;
+    }
+  }
+
+  private static <K> K poll(LinkedHashSet<K> region) {
+    Iterator<K> iterator = region.iterator();
+    K key = iterator.next();
+    iterator.remove();
+    return key;
+  }
+}
@@ -0,0 +1,284 @@
+package com.nodemules.cache.core;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Queues the writes and deletes of a {@link WriteMode#WRITE_BEHIND} cache and hands them to the
+ * real writer in batches. The cache's {@link CacheScheduler} times the flushes, so no thread is
+ * kept per cache and nothing but queued changes is held while they wait, and each flush runs on
+ * the cache's load executor, so a slow writer never holds up the scheduler's maintenance of other
+ * caches. A key is queued at most once, holding
+ * its latest value, or null once it has been deleted; a batch is flushed as soon as
+ * {@code batchSize} keys are queued, or once the oldest has waited {@code flushInterval}.
+ *
+ * <p>A batch the writer fails is queued again behind any newer change to the same keys and
+ * retried after the flush interval. Closing flushes everything still queued before returning;
+ * changes made after that are written through.
+ *
+ * @author brent
+ * @since 8/13/18.
+ */
+@Slf4j
+final class WriteBehindWriter<K, V> implements CacheWriter<K, V>, AutoCloseable {
+
+  private static final long UNSCHEDULED = Long.MAX_VALUE;
+
+  private final CacheWriter<K, V> writer;
+  private final int batchSize;
+  private final long flushInterval;
+  private final int capacity;
+  private final CacheScheduler scheduler;
+  private final Executor executor;
+  private final Map<K, V> queue = new LinkedHashMap<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notFull = lock.newCondition();
+  /**
+   * Held while flushing, so closing waits for a flush in progress.
+   */
+  private final ReentrantLock flushLock = new ReentrantLock();
+  private long oldest;
+  private long retryAt = System.nanoTime();
+  private long nextFlush = UNSCHEDULED;
+  private boolean closed;
+
+  WriteBehindWriter(CacheWriter<K, V> writer, int batchSize, long flushInterval, int capacity,
+      CacheScheduler scheduler, Executor executor) {
+    this.writer = writer;
+    this.batchSize = Math.max(1, batchSize);
+    this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+    this.capacity = Math.max(this.batchSize, capacity);
+    this.scheduler = scheduler;
+    this.executor = executor;
+  }
+
+  @Override
+  public void write(K key, V value) throws Exception {
+    if (!enqueue(key, value)) {
+      writer.write(key, value);
+    }
+  }
+
+  @Override
+  public void delete(K key) throws Exception {
+    if (!enqueue(key, null)) {
+      writer.delete(key);
+    }
+  }
+
+  /**
+   * Queues the change, waiting for room if the queue is full and the key is not already queued.
+   *
+   * @return false if the writer has been closed and the change was not queued
+   */
+  private boolean enqueue(K key, V value) throws InterruptedException {
+    lock.lock();
+    try {
+      while (!closed && queue.size() >= capacity && !queue.containsKey(key)) {
+        notFull.await();
+      }
+      if (closed) {
+        return false;
+      }
+      if (queue.isEmpty()) {
+        oldest = System.nanoTime();
+      }
+      queue.put(key, value);
+      if (queue.size() == 1 || queue.size() == batchSize) {
+        flushAt(dueAt());
+      }
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * When the queued changes are next due to be flushed.
+   */
+  private long dueAt() {
+    long due = queue.size() >= batchSize ? System.nanoTime() : oldest + flushInterval;
+    return due - retryAt < 0 ? retryAt : due;
+  }
+
+  /**
+   * Schedules a flush for the given time, unless one is already due by then.
+   */
+  private void flushAt(long time) {
+    if (nextFlush != UNSCHEDULED && time - nextFlush >= 0) {
+      return;
+    }
+    nextFlush = time;
+    scheduler.schedule(this::dispatchFlush, Math.max(0L, time - System.nanoTime()),
+        TimeUnit.NANOSECONDS);
+  }
+
+  private void dispatchFlush() {
+    try {
+      executor.execute(this::flush);
+    } catch (RejectedExecutionException e) {
+      log.debug("Flushing on the scheduler, the write-behind executor rejected the flush");
+      flush();
+    }
+  }
+
+  private void flush() {
+    flushLock.lock();
+    try {
+      while (true) {
+        Map<K, V> batch;
+        lock.lock();
+        try {
+          nextFlush = UNSCHEDULED;
+          if (!isDue()) {
+            if (!queue.isEmpty()) {
+              flushAt(dueAt());
+            }
+            return;
+          }
+          batch = drain(batchSize);
+        } finally {
+          lock.unlock();
+        }
+        if (!flush(batch)) {
+          backOff();
+          return;
+        }
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  private boolean isDue() {
+    long now = System.nanoTime();
+    return now - retryAt >= 0 && (queue.size() >= batchSize
+        || !queue.isEmpty() && now - oldest >= flushInterval);
+  }
+
+  private Map<K, V> drain(int limit) {
+    Map<K, V> batch = new LinkedHashMap<>();
+    Iterator<Map.Entry<K, V>> iterator = queue.entrySet().iterator();
+    while (iterator.hasNext() && batch.size() < limit) {
+      Map.Entry<K, V> entry = iterator.next();
+      batch.put(entry.getKey(), entry.getValue());
+      iterator.remove();
+    }
+    notFull.signalAll();
+    return batch;
+  }
+
+  /**
+   * @return false if the writer failed part of the batch
+   */
+  private boolean flush(Map<K, V> batch) {
+    Map<K, V> writes = new LinkedHashMap<>();
+    List<K> deletes = new ArrayList<>();
+    batch.forEach((key, value) -> {
+      if (value == null) {
+        deletes.add(key);
+      } else {
+        writes.put(key, value);
+      }
+    });
+    boolean flushed = true;
+    if (!writes.isEmpty()) {
+      try {
+        writer.writeAll(writes);
+      } catch (Exception e) {
+        log.error("Failed to write {} values behind", writes.size(), e);
+        requeue(writes);
+        flushed = false;
+      }
+    }
+    if (!deletes.isEmpty()) {
+      try {
+        writer.deleteAll(deletes);
+      } catch (Exception e) {
+        log.error("Failed to delete {} keys behind", deletes.size(), e);
+        Map<K, V> failed = new LinkedHashMap<>();
+        deletes.forEach(key -> failed.put(key, null));
+        requeue(failed);
+        flushed = false;
+      }
+    }
+    return flushed;
+  }
+
+  /**
+   * Queues failed changes again, unless a newer change to the same key has been queued since or
+   * the writer has been closed, in which case there is no later flush to retry them in.
+   */
+  private void requeue(Map<K, V> failed) {
+    lock.lock();
+    try {
+      if (closed) {
+        log.error("Dropping {} changes that failed to be written behind after close",
+            failed.size());
+        return;
+      }
+      if (queue.isEmpty()) {
+        oldest = System.nanoTime();
+      }
+      failed.forEach(queue::putIfAbsent);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Holds off flushing for the flush interval after a failure, then retries what was requeued.
+   */
+  private void backOff() {
+    lock.lock();
+    try {
+      retryAt = System.nanoTime() + flushInterval;
+      if (!closed && !queue.isEmpty()) {
+        flushAt(retryAt);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Flushes every queued change, after any flush in progress; changes made from then on are
+   * written through.
+   */
+  @Override
+  public void close() {
+    flushLock.lock();
+    try {
+      Map<K, V> remaining;
+      lock.lock();
+      try {
+        closed = true;
+        remaining = drain(Integer.MAX_VALUE);
+      } finally {
+        lock.unlock();
+      }
+      Map<K, V> batch = new LinkedHashMap<>();
+      for (Map.Entry<K, V> entry : remaining.entrySet()) {
+        batch.put(entry.getKey(), entry.getValue());
+        if (batch.size() == batchSize) {
+          flush(batch);
+          batch = new LinkedHashMap<>();
+        }
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+      }
+    } finally {
+      flushLock.unlock();
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.nodemules.cache.core;
+
+/**
+ * When a {@link Cache} hands its puts and invalidations to its {@link CacheWriter}.
+ *
+ * @author brent
+ * @since 8/13/18.
+ */
+public enum WriteMode {
+
+  /**
+   * The writer is called before the cache is updated, on the calling thread; if it fails the
+   * cache is left unchanged and the caller gets a {@link CacheWriterException}.
+   */
+  WRITE_THROUGH,
+
+  /**
+   * The cache is updated straight away and the change is queued. Queued changes are handed to the
+   * writer in batches once enough have queued or the oldest has waited long enough, as timed by
+   * the cache's {@link CacheScheduler}. Repeated changes to a key while it is queued are coalesced
+   * into the latest. When the queue is full, puts and invalidations of keys not already queued
+   * wait for room; reads never do.
+   */
+  WRITE_BEHIND
+}
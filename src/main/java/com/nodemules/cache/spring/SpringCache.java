@@ -0,0 +1,89 @@
+package com.nodemules.cache.spring;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheLoaderException;
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * A Spring {@link org.springframework.cache.Cache} backed by a {@link Cache}, holding values of
+ * any type without a {@link com.nodemules.cache.core.CachedRecord} subclass per type. Keys must
+ * be {@link Serializable}, as the keys Spring generates by default are.
+ *
+ * <p>{@link #get(Object, Callable)}, used by {@code @Cacheable(sync = true)}, calls the value
+ * loader once for concurrent misses on the same key, the other callers waiting for its value.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+public class SpringCache extends AbstractValueAdaptingCache {
+
+  private final String name;
+  private final Cache<Serializable, Object> cache;
+
+  public SpringCache(String name, Cache<Serializable, Object> cache, boolean allowNullValues) {
+    super(allowNullValues);
+    this.name = name;
+    this.cache = cache;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public Cache<Serializable, Object> getNativeCache() {
+    return cache;
+  }
+
+  @Override
+  protected Object lookup(Object key) {
+    return cache.get(toKey(key));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T get(Object key, Callable<T> valueLoader) {
+    try {
+      return (T) fromStoreValue(cache.get(toKey(key), id -> toStoreValue(valueLoader.call())));
+    } catch (CacheLoaderException e) {
+      throw new ValueRetrievalException(key, valueLoader, e.getCause());
+    }
+  }
+
+  @Override
+  public void put(Object key, Object value) {
+    cache.put(toKey(key), toStoreValue(value));
+  }
+
+  /**
+   * Puts the value unless the key is cached, as one single-flight load of the key, so it does
+   * not overwrite a value loaded or put concurrently.
+   */
+  @Override
+  public ValueWrapper putIfAbsent(Object key, Object value) {
+    Object stored = toStoreValue(value);
+    Object current = cache.get(toKey(key), id -> stored);
+    return current == stored ? null : new SimpleValueWrapper(fromStoreValue(current));
+  }
+
+  @Override
+  public void evict(Object key) {
+    cache.invalidate(toKey(key));
+  }
+
+  @Override
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  private static Serializable toKey(Object key) {
+    if (!(key instanceof Serializable)) {
+      throw new IllegalArgumentException("Cache keys must be Serializable -> " + key);
+    }
+    return (Serializable) key;
+  }
+}
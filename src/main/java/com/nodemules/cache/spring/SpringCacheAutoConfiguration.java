@@ -0,0 +1,37 @@
+package com.nodemules.cache.spring;
+
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheAspectSupport;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Backs Spring's cache abstraction with a {@link SpringCacheManager} configured from
+ * {@code nodemules.cache} properties once caching is enabled with {@code @EnableCaching}, as
+ * Boot's own cache auto-configuration does. It backs off when the application defines a
+ * {@link CacheManager} of its own, or sets {@code nodemules.cache.enabled=false}.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+@Configuration
+@ConditionalOnClass(CacheManager.class)
+@ConditionalOnBean(CacheAspectSupport.class)
+@ConditionalOnMissingBean(CacheManager.class)
+@ConditionalOnProperty(prefix = "nodemules.cache", name = "enabled", matchIfMissing = true)
+@AutoConfigureBefore(CacheAutoConfiguration.class)
+@EnableConfigurationProperties(SpringCacheProperties.class)
+public class SpringCacheAutoConfiguration {
+
+  @Bean
+  public SpringCacheManager cacheManager(SpringCacheProperties properties) {
+    return new SpringCacheManager(properties);
+  }
+}
@@ -0,0 +1,70 @@
+package com.nodemules.cache.spring;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.Cache.CacheBuilder;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.cache.CacheManager;
+
+/**
+ * A Spring {@link CacheManager} of {@link SpringCache}s, each backed by its own {@link Cache}
+ * built from the given {@link SpringCacheProperties}. Caches are created the first time they are
+ * asked for, unless the properties name a fixed set of caches. Closing the manager closes its
+ * caches.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+public class SpringCacheManager implements CacheManager, AutoCloseable {
+
+  private final SpringCacheProperties properties;
+  private final ConcurrentMap<String, SpringCache> caches = new ConcurrentHashMap<>();
+  private final boolean dynamic;
+
+  public SpringCacheManager(SpringCacheProperties properties) {
+    this.properties = properties;
+    this.dynamic = properties.getCacheNames().isEmpty();
+    properties.getCacheNames().forEach(this::getCache);
+  }
+
+  @Override
+  public org.springframework.cache.Cache getCache(String name) {
+    SpringCache cache = caches.get(name);
+    if (cache == null && (dynamic || properties.getCacheNames().contains(name))) {
+      cache = caches.computeIfAbsent(name,
+          key -> new SpringCache(key, newCache(), properties.isAllowNullValues()));
+    }
+    return cache;
+  }
+
+  @Override
+  public Collection<String> getCacheNames() {
+    return Collections.unmodifiableSet(caches.keySet());
+  }
+
+  @Override
+  public void close() {
+    caches.values().forEach(cache -> cache.getNativeCache().close());
+  }
+
+  private Cache<Serializable, Object> newCache() {
+    CacheBuilder<Serializable, Object> builder = Cache.builder();
+    if (properties.getTtl() != null) {
+      builder.ttl(properties.getTtl());
+      builder.refreshTtlOnAccess(properties.isRefreshTtlOnAccess());
+    }
+    if (properties.getMaximumSize() != null) {
+      builder.maximumSize(properties.getMaximumSize());
+    }
+    if (properties.getEvictionSleepTime() != null) {
+      builder.evictionSleepTime(properties.getEvictionSleepTime());
+    }
+    if (properties.isRecordStats()) {
+      builder.recordStats();
+    }
+    return builder.build();
+  }
+}
@@ -0,0 +1,61 @@
+package com.nodemules.cache.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Configures the caches of the auto-configured {@link SpringCacheManager}, under
+ * {@code nodemules.cache}. Times are in milliseconds, as on
+ * {@link com.nodemules.cache.core.Cache.CacheBuilder}.
+ *
+ * @author brent
+ * @since 8/16/18.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "nodemules.cache")
+public class SpringCacheProperties {
+
+  /**
+   * Whether to auto-configure a {@link SpringCacheManager}; defaults to true.
+   */
+  private boolean enabled = true;
+
+  /**
+   * The names of the caches to create up front; when set, no others are created on demand.
+   */
+  private List<String> cacheNames = new ArrayList<>();
+
+  /**
+   * How long an entry lives after it is put; entries never expire if unset.
+   */
+  private Long ttl;
+
+  /**
+   * Whether a read restarts an entry's TTL.
+   */
+  private boolean refreshTtlOnAccess;
+
+  /**
+   * The most entries each cache holds; unbounded if unset.
+   */
+  private Long maximumSize;
+
+  /**
+   * How often expired entries are removed in the background.
+   */
+  private Long evictionSleepTime;
+
+  /**
+   * Whether each cache records statistics.
+   */
+  private boolean recordStats;
+
+  /**
+   * Whether null values are cached, as a marker, rather than rejected.
+   */
+  private boolean allowNullValues = true;
+}
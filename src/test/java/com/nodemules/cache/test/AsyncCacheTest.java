@@ -0,0 +1,157 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.AsyncCache;
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheLoader;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/6/18.
+ */
+@Slf4j
+public class AsyncCacheTest extends AbstractTestRunner {
+
+  private ExecutorService executor;
+
+  @Before
+  public void before() {
+    executor = Executors.newFixedThreadPool(4, runnable -> new Thread(runnable, "async-test"));
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGet_sharesInFlightLoad() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .executor(executor)
+        .buildAsync(key -> {
+          loads.incrementAndGet();
+          release.await();
+          return "value-" + key;
+        });
+
+    CompletableFuture<String> first = cache.get(1);
+    CompletableFuture<String> second = cache.get(1);
+    assert first == second;
+    assert !first.isDone();
+    assert cache.getIfPresent(1) == first;
+
+    release.countDown();
+    assert "value-1".equals(first.get(5, TimeUnit.SECONDS));
+    assert "value-1".equals(cache.get(1).getNow(null));
+    assert cache.synchronous().size() == 1;
+    assert loads.get() == 1;
+  }
+
+  @Test
+  public void testGet_failedLoadIsRemoved() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    AsyncCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .executor(executor)
+        .buildAsync(key -> {
+          if (loads.incrementAndGet() == 1) {
+            throw new IllegalStateException("backend unavailable");
+          }
+          return "value-" + key;
+        });
+
+    try {
+      cache.get(1).get(5, TimeUnit.SECONDS);
+      assert false;
+    } catch (ExecutionException e) {
+      assert e.getCause() instanceof IllegalStateException;
+    }
+    assert cache.getIfPresent(1) == null;
+    assert "value-1".equals(cache.get(1).get(5, TimeUnit.SECONDS));
+    assert loads.get() == 2;
+  }
+
+  @Test
+  public void testGetAll_loadsMissesInOneBatch() throws Exception {
+    AtomicInteger batches = new AtomicInteger();
+    AsyncCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .executor(executor)
+        .buildAsync(new CacheLoader<Integer, String>() {
+          @Override
+          public String load(Integer key) {
+            throw new AssertionError("Expected a bulk load");
+          }
+
+          @Override
+          public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) {
+            batches.incrementAndGet();
+            Map<Integer, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "value-" + key));
+            return values;
+          }
+        });
+    cache.put(0, CompletableFuture.completedFuture("zero"));
+
+    Map<Integer, String> values = cache.getAll(Arrays.asList(0, 1, 2, 3))
+        .get(5, TimeUnit.SECONDS);
+
+    assert batches.get() == 1;
+    assert values.size() == 4;
+    assert "zero".equals(values.get(0));
+    assert "value-3".equals(values.get(3));
+    assert cache.synchronous().size() == 4;
+  }
+
+  @Test
+  public void testInvalidate_duringLoadIsNotCached() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AsyncCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .executor(executor)
+        .buildAsync(key -> {
+          release.await();
+          return "value-" + key;
+        });
+
+    CompletableFuture<String> load = cache.get(1);
+    cache.invalidate(1);
+    release.countDown();
+
+    assert "value-1".equals(load.get(5, TimeUnit.SECONDS));
+    assert cache.synchronous().size() == 0;
+  }
+
+  @Test
+  public void testRemovalListener_dispatchedOnExecutor() throws Exception {
+    CountDownLatch notified = new CountDownLatch(1);
+    AtomicReference<String> thread = new AtomicReference<>();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .removalExecutor(executor)
+        .removalListener(event -> {
+          thread.set(Thread.currentThread().getName());
+          notified.countDown();
+        })
+        .build();
+    cache.put(new CachedNumber(1));
+
+    cache.invalidate(1);
+
+    assert notified.await(5, TimeUnit.SECONDS);
+    assert "async-test".equals(thread.get());
+  }
+}
@@ -0,0 +1,160 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheStats;
+import com.nodemules.cache.core.CacheWriter;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/14/18.
+ */
+@Slf4j
+public class BulkOperationsTest extends AbstractTestRunner {
+
+  private List<RemovalEvent<Integer, Integer>> removals;
+
+  @Before
+  public void before() {
+    removals = new ArrayList<>();
+  }
+
+  @Test
+  public void testGetAll_returnsCachedValues() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .recordStats()
+        .build();
+    cache.putAll(numbers(0, 100));
+
+    Map<Integer, Integer> values = cache.getAll(
+        IntStream.range(0, 110).boxed().collect(Collectors.toList()));
+
+    CacheStats stats = cache.stats();
+    assert values.size() == 100;
+    values.forEach((key, value) -> {
+      assert key.equals(value);
+    });
+    assert stats.getPutCount() == 100;
+    assert stats.getHitCount() == 100;
+    assert stats.getMissCount() == 10;
+  }
+
+  @Test
+  public void testGetAll_removesExpiredEntries() {
+    FakeTicker ticker = new FakeTicker();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .ttl(1000L)
+        .recordStats()
+        .removalListener(removals::add)
+        .build();
+    cache.putAll(numbers(0, 10));
+    ticker.advance(2, TimeUnit.SECONDS);
+
+    assert cache.getAll(IntStream.range(0, 10).boxed().collect(Collectors.toList())).isEmpty();
+    assert cache.size() == 0;
+    assert removals.size() == 10;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPIRED);
+    assert cache.stats().getExpiredReadCount() == 10;
+    cache.close();
+  }
+
+  @Test
+  public void testPutAll_boundedCacheEvicts() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(50)
+        .removalListener(removals::add)
+        .build();
+    cache.putAll(numbers(0, 200));
+    cache.cleanUp();
+
+    assert cache.size() == 50;
+    assert removals.size() == 150;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.SIZE);
+  }
+
+  @Test
+  public void testInvalidateAll_keys() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .removalListener(removals::add)
+        .build();
+    cache.putAll(numbers(0, 100));
+    cache.invalidateAll(IntStream.range(50, 150).boxed().collect(Collectors.toList()));
+
+    assert cache.size() == 50;
+    assert removals.size() == 50;
+    assert removals.stream().allMatch(event -> event.getValue() >= 50);
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPLICIT);
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(100)
+        .recordStats()
+        .build();
+    cache.putAll(numbers(0, 100));
+    cache.invalidateAll();
+    cache.cleanUp();
+
+    assert cache.size() == 0;
+    assert cache.stats().removalCount(RemovalCause.EXPLICIT) == 100;
+
+    cache.putAll(numbers(100, 300));
+    cache.cleanUp();
+    assert cache.size() == 100;
+    assert cache.stats().evictionCount() == 100;
+  }
+
+  @Test
+  public void testPutAll_writesOneBatch() {
+    AtomicInteger batches = new AtomicInteger();
+    AtomicInteger deletes = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .writer(new CacheWriter<Integer, Integer>() {
+          @Override
+          public void write(Integer key, Integer value) {
+            throw new AssertionError("Expected a batch write");
+          }
+
+          @Override
+          public void delete(Integer key) {
+            throw new AssertionError("Expected a batch delete");
+          }
+
+          @Override
+          public void writeAll(Map<? extends Integer, ? extends Integer> values) {
+            assert values.size() == 100;
+            batches.incrementAndGet();
+          }
+
+          @Override
+          public void deleteAll(Iterable<? extends Integer> keys) {
+            deletes.incrementAndGet();
+          }
+        })
+        .build();
+    cache.putAll(numbers(0, 100));
+    cache.invalidateAll();
+
+    assert batches.get() == 1;
+    assert deletes.get() == 1;
+  }
+
+  private static List<CachedRecord<Integer, Integer>> numbers(int from, int to) {
+    return IntStream.range(from, to).mapToObj(CachedNumber::new).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,42 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheEventListener.EventType;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/9/18.
+ */
+@Slf4j
+public class CacheEventListenerTest extends AbstractTestRunner {
+
+  @Test
+  public void testEventListener_reportsOperations() {
+    FakeTicker ticker = new FakeTicker();
+    List<String> events = new ArrayList<>();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .eventListener((type, key) -> events.add(type + ":" + key))
+        .build();
+
+    cache.put(new CachedNumber(1));
+    cache.put(new CachedNumber(2, 100L));
+    cache.get(1);
+    cache.get(3);
+    ticker.advance(101, TimeUnit.MILLISECONDS);
+    cache.get(2);
+    cache.invalidate(1);
+
+    log.debug("events -> {}", events);
+    assert events.equals(Arrays.asList(EventType.PUT + ":1", EventType.PUT + ":2",
+        EventType.HIT + ":1", EventType.MISS + ":3", EventType.EXPIRED_READ + ":2",
+        EventType.REMOVAL + ":2", EventType.REMOVAL + ":1"));
+  }
+}
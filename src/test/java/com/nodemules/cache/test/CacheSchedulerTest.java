@@ -0,0 +1,124 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheScheduler;
+import com.nodemules.cache.core.Ticker;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/3/18.
+ */
+@Slf4j
+public class CacheSchedulerTest extends AbstractTestRunner {
+
+  @Test
+  public void testScheduler_sharedAcrossCaches() {
+    final int caches = 200;
+    AtomicInteger removals = new AtomicInteger();
+    int threadsBefore = Thread.activeCount();
+    List<Cache<Integer, Integer>> created = new ArrayList<>();
+    for (int i = 0; i < caches; i++) {
+      Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+          .evictionSleepTime(50)
+          .removalListener(event -> removals.incrementAndGet())
+          .build();
+      cache.put(new CachedNumber(i, 50L));
+      created.add(cache);
+    }
+
+    assert Thread.activeCount() - threadsBefore <= 1;
+
+    sleep(500);
+    assert removals.get() == caches;
+    created.forEach(Cache::close);
+  }
+
+  @Test
+  public void testClose_stopsEviction() {
+    AtomicInteger removals = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .evictionSleepTime(20)
+        .removalListener(event -> removals.incrementAndGet())
+        .build();
+    cache.close();
+    cache.put(new CachedNumber(1, 20L));
+
+    sleep(200);
+    assert removals.get() == 0;
+
+    cache.cleanUp();
+    assert removals.get() == 1;
+  }
+
+  @Test
+  public void testScheduler_backsOffIdleCaches() {
+    AtomicInteger ticks = new AtomicInteger();
+    try (CacheScheduler scheduler = CacheScheduler.builder().maximumBackoff(8).build();
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+            .scheduler(scheduler)
+            .evictionSleepTime(10)
+            .evictionProtocol(c -> {
+              ticks.incrementAndGet();
+              return 0;
+            })
+            .build()) {
+      sleep(1_000);
+      log.info("ticks in 1000ms at a 10ms interval -> {}", ticks.get());
+
+      assert ticks.get() > 0;
+      assert ticks.get() < 30;
+    }
+  }
+
+  @Test
+  public void testTicker_advancesWhileTicksBlock() {
+    try (CacheScheduler scheduler = CacheScheduler.builder().executor(Runnable::run).build();
+        Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+            .scheduler(scheduler)
+            .evictionSleepTime(10)
+            .evictionProtocol(c -> {
+              sleep(500);
+              return 0;
+            })
+            .build()) {
+      Ticker ticker = scheduler.ticker();
+      sleep(50);
+      long before = ticker.read();
+      sleep(100);
+      assert ticker.read() > before;
+    }
+  }
+
+  @Test
+  public void testScheduler_dropsDiscardedCaches() {
+    AtomicInteger ticks = new AtomicInteger();
+    CacheScheduler scheduler = CacheScheduler.builder().maximumBackoff(1).build();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .scheduler(scheduler)
+        .evictionSleepTime(10)
+        .evictionProtocol(c -> ticks.incrementAndGet())
+        .build();
+    WeakReference<Cache<Integer, Integer>> reference = new WeakReference<>(cache);
+    sleep(100);
+    assert ticks.get() > 0;
+
+    cache = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+      sleep(50);
+    }
+    assert reference.get() == null;
+
+    int ticksAfterCollection = ticks.get();
+    sleep(100);
+    assert ticks.get() == ticksAfterCollection;
+    scheduler.close();
+  }
+}
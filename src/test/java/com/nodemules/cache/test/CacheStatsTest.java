@@ -0,0 +1,140 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheLoaderException;
+import com.nodemules.cache.core.CacheStats;
+import com.nodemules.cache.core.LoadingCache;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/8/18.
+ */
+@Slf4j
+public class CacheStatsTest extends AbstractTestRunner {
+
+  @Test
+  public void testStats_countsReadsWritesAndRemovals() {
+    FakeTicker ticker = new FakeTicker();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .maximumSize(10)
+        .recordStats()
+        .build();
+    for (int i = 0; i < 20; i++) {
+      cache.put(new CachedNumber(i, i < 5 ? 1000L : null));
+    }
+    cache.cleanUp();
+    cache.put(new CachedNumber(100, 1000L));
+    ticker.advance(2, TimeUnit.SECONDS);
+
+    assert cache.get(100) == null;
+    cache.get(19);
+    cache.get(19);
+    cache.get(-1);
+    cache.invalidate(19);
+
+    CacheStats stats = cache.stats();
+    log.info("{}", stats);
+    assert stats.getPutCount() == 21;
+    assert stats.getHitCount() == 2;
+    assert stats.getMissCount() == 2;
+    assert stats.getExpiredReadCount() == 1;
+    assert stats.hitRate() == 0.5;
+    assert stats.removalCount(RemovalCause.SIZE) == 11;
+    assert stats.removalCount(RemovalCause.EXPIRED) == 1;
+    assert stats.removalCount(RemovalCause.EXPLICIT) == 1;
+    assert stats.evictionCount() == 12;
+  }
+
+  @Test
+  public void testStats_countsLoads() {
+    LoadingCache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .recordStats()
+        .build(key -> {
+          if (key < 0) {
+            throw new IllegalArgumentException("negative");
+          }
+          return key;
+        });
+    cache.get(1);
+    cache.get(1);
+    cache.getAll(Arrays.asList(1, 2, 3));
+    try {
+      cache.get(-1);
+      assert false;
+    } catch (CacheLoaderException e) {
+      log.debug("Expected load failure", e);
+    }
+
+    CacheStats stats = cache.stats();
+    log.info("{}", stats);
+    assert stats.getHitCount() == 2;
+    assert stats.getMissCount() == 4;
+    assert stats.getLoadSuccessCount() == 2;
+    assert stats.getLoadFailureCount() == 1;
+    assert stats.getTotalLoadTime() > 0;
+    assert Arrays.stream(stats.getLoadTimeHistogram()).sum() == 3;
+  }
+
+  @Test
+  public void testStats_disabledByDefault() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().build();
+    cache.put(new CachedNumber(1));
+    cache.get(1);
+    cache.get(2);
+
+    CacheStats stats = cache.stats();
+    assert stats.getPutCount() == 0;
+    assert stats.requestCount() == 0;
+  }
+
+  @Test
+  public void testJmx_exportsStatsUntilClosed() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.nodemules.cache:type=Cache,name=\"numbers\"");
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .jmx("numbers")
+        .build();
+    cache.put(new CachedNumber(1));
+    cache.get(1);
+    cache.get(2);
+
+    assert (Long) server.getAttribute(name, "HitCount") == 1;
+    assert (Long) server.getAttribute(name, "MissCount") == 1;
+    assert (Long) server.getAttribute(name, "Size") == 1;
+
+    cache.close();
+    assert !server.isRegistered(name);
+  }
+
+  @Test
+  public void testJmx_unregistersDiscardedCaches() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("com.nodemules.cache:type=Cache,name=\"discarded\"");
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .jmx("discarded")
+        .build();
+    cache.put(new CachedNumber(1));
+    WeakReference<Cache<Integer, Integer>> reference = new WeakReference<>(cache);
+
+    cache = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+      sleep(50);
+    }
+    assert reference.get() == null;
+
+    assert (Long) server.getAttribute(name, "Size") == 0;
+    assert !server.isRegistered(name);
+  }
+}
@@ -0,0 +1,296 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheWriter;
+import com.nodemules.cache.core.CacheWriterException;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.LoadingCache;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/13/18.
+ */
+@Slf4j
+public class CacheWriterTest extends AbstractTestRunner {
+
+  private RecordingWriter writer;
+
+  @Before
+  public void before() {
+    writer = new RecordingWriter();
+  }
+
+  @Test
+  public void testPut_writesThrough() {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder().writer(writer).build();
+    cache.put(new CachedValue(1, "one"));
+    cache.put(new CachedValue(2, "two"));
+    cache.invalidate(1);
+
+    assert writer.store.size() == 1;
+    assert "two".equals(writer.store.get(2));
+    assert writer.batches.size() == 3;
+  }
+
+  @Test
+  public void testPut_writeThroughFailureLeavesCacheUnchanged() {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(new RecordingWriter() {
+          @Override
+          public void write(Integer key, String value) {
+            throw new IllegalStateException("store unavailable");
+          }
+        })
+        .build();
+    try {
+      cache.put(new CachedValue(1, "one"));
+      assert false;
+    } catch (CacheWriterException e) {
+      assert e.getCause() instanceof IllegalStateException;
+    }
+    assert cache.get(1) == null;
+  }
+
+  @Test
+  public void testGet_loadedValuesAreNotWritten() {
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(writer)
+        .build(String::valueOf);
+
+    assert "1".equals(cache.get(1));
+    assert writer.batches.isEmpty();
+  }
+
+  @Test
+  public void testPut_writeBehindCoalescesWrites() {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(writer)
+        .writeBehind(1_000, 60_000L)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedValue(i % 10, "value-" + i));
+    }
+    cache.invalidate(9);
+    cache.close();
+
+    log.debug("batches -> {}", writer.batches.size());
+    assert writer.batches.size() == 2;
+    assert writer.store.size() == 9;
+    for (int i = 0; i < 9; i++) {
+      assert ("value-" + (90 + i)).equals(writer.store.get(i));
+    }
+  }
+
+  @Test
+  public void testPut_writeBehindFlushesFullBatch() throws InterruptedException {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(writer)
+        .writeBehind(10, 60_000L)
+        .build();
+    for (int i = 0; i < 25; i++) {
+      cache.put(new CachedValue(i, String.valueOf(i)));
+    }
+
+    assert writer.batches.poll(5, TimeUnit.SECONDS) == 10;
+    assert writer.batches.poll(5, TimeUnit.SECONDS) == 10;
+    assert writer.batches.poll(100, TimeUnit.MILLISECONDS) == null;
+    cache.close();
+    assert writer.batches.poll() == 5;
+  }
+
+  @Test
+  public void testPut_writeBehindFlushesAfterDelay() throws InterruptedException {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(writer)
+        .writeBehind(100, 50L)
+        .build();
+    long start = System.nanoTime();
+    cache.put(new CachedValue(1, "one"));
+
+    assert writer.batches.poll(5, TimeUnit.SECONDS) == 1;
+    assert System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50);
+    assert "one".equals(writer.store.get(1));
+    cache.close();
+  }
+
+  @Test
+  public void testPut_writeBehindFlushesOnExecutor() throws InterruptedException {
+    BlockingQueue<String> threads = new LinkedBlockingQueue<>();
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(new RecordingWriter() {
+          @Override
+          public void writeAll(Map<? extends Integer, ? extends String> values) {
+            threads.add(Thread.currentThread().getName());
+          }
+        })
+        .writeBehind(1, 10L)
+        .executor(task -> new Thread(task, "write-behind-test").start())
+        .build();
+    cache.put(new CachedValue(1, "one"));
+
+    assert "write-behind-test".equals(threads.poll(5, TimeUnit.SECONDS));
+    cache.close();
+  }
+
+  @Test
+  public void testPut_writeBehindBackpressure() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingWriter blocking = new RecordingWriter() {
+      @Override
+      public void writeAll(Map<? extends Integer, ? extends String> values) throws Exception {
+        writing = true;
+        release.await();
+        super.writeAll(values);
+      }
+    };
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(blocking)
+        .writeBehind(2, 60_000L)
+        .writeQueueCapacity(2)
+        .build();
+    cache.put(new CachedValue(1, "one"));
+    cache.put(new CachedValue(2, "two"));
+    while (!blocking.writing) {
+      Thread.yield();
+    }
+    cache.put(new CachedValue(3, "three"));
+    cache.put(new CachedValue(4, "four"));
+
+    CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(
+        () -> cache.put(new CachedValue(5, "five")));
+    try {
+      blocked.get(200, TimeUnit.MILLISECONDS);
+      assert false;
+    } catch (TimeoutException e) {
+      log.debug("Put is waiting for room in the write-behind queue");
+    }
+    cache.put(new CachedValue(4, "FOUR"));
+    assert "four".equals(cache.get(4)) || "FOUR".equals(cache.get(4));
+    assert cache.get(5) == null;
+
+    release.countDown();
+    assert blocked.get(5, TimeUnit.SECONDS) == 5;
+    cache.close();
+    assert blocking.store.size() == 5;
+    assert "FOUR".equals(blocking.store.get(4));
+  }
+
+  @Test
+  public void testPut_writeBehindInterruptKeepsInterruptStatus() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    RecordingWriter blocking = new RecordingWriter() {
+      @Override
+      public void writeAll(Map<? extends Integer, ? extends String> values) throws Exception {
+        writing = true;
+        release.await();
+        super.writeAll(values);
+      }
+    };
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(blocking)
+        .writeBehind(2, 60_000L)
+        .writeQueueCapacity(2)
+        .build();
+    cache.put(new CachedValue(1, "one"));
+    cache.put(new CachedValue(2, "two"));
+    while (!blocking.writing) {
+      Thread.yield();
+    }
+    cache.put(new CachedValue(3, "three"));
+    cache.put(new CachedValue(4, "four"));
+
+    Thread.currentThread().interrupt();
+    try {
+      cache.put(new CachedValue(5, "five"));
+      assert false;
+    } catch (CacheWriterException e) {
+      assert e.getCause() instanceof InterruptedException;
+    }
+    assert Thread.interrupted();
+    release.countDown();
+    cache.close();
+    assert blocking.store.size() == 4;
+  }
+
+  @Test
+  public void testWriteBehind_discardedCacheIsCollected() throws InterruptedException {
+    Cache<Integer, String> cache = Cache.<Integer, String>builder()
+        .writer(writer)
+        .writeBehind(100, 50L)
+        .build();
+    cache.put(new CachedValue(1, "one"));
+    assert Thread.getAllStackTraces().keySet().stream()
+        .noneMatch(thread -> thread.getName().startsWith("cache-writer"));
+
+    WeakReference<Cache<Integer, String>> reference = new WeakReference<>(cache);
+    cache = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+      sleep(50);
+    }
+    assert reference.get() == null;
+    assert writer.batches.poll(5, TimeUnit.SECONDS) == 1;
+    assert "one".equals(writer.store.get(1));
+  }
+
+  private static class RecordingWriter implements CacheWriter<Integer, String> {
+
+    final Map<Integer, String> store = new ConcurrentHashMap<>();
+    final BlockingQueue<Integer> batches = new LinkedBlockingQueue<>();
+    volatile boolean writing;
+
+    @Override
+    public void write(Integer key, String value) throws Exception {
+      writeAll(Collections.singletonMap(key, value));
+    }
+
+    @Override
+    public void delete(Integer key) throws Exception {
+      deleteAll(Collections.singletonList(key));
+    }
+
+    @Override
+    public void writeAll(Map<? extends Integer, ? extends String> values) throws Exception {
+      writing = true;
+      store.putAll(values);
+      batches.add(values.size());
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Integer> keys) {
+      List<Integer> deleted = new ArrayList<>();
+      keys.forEach(deleted::add);
+      deleted.forEach(store::remove);
+      batches.add(deleted.size());
+    }
+  }
+
+  private static class CachedValue extends CachedRecord<Integer, String> {
+
+    private static final long serialVersionUID = -1829064563716262377L;
+
+    CachedValue(Integer id, String value) {
+      super(id, value);
+    }
+
+    @Override
+    public String getValue() {
+      return super.getValue(String.class);
+    }
+  }
+}
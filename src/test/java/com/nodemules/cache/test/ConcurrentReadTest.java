@@ -0,0 +1,117 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * @author brent
+ * @since 7/30/18.
+ */
+@Slf4j
+@ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+public class ConcurrentReadTest extends MovieCacheTest {
+
+  @Test
+  public void testGet_scalesWithThreads() throws InterruptedException {
+    final int keys = 1_000;
+    final int readsPerThread = 100_000;
+    final int cores = Runtime.getRuntime().availableProcessors();
+
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder().build();
+    List<UUID> ids = new ArrayList<>();
+    for (int i = 0; i < keys; i++) {
+      ids.add(cache.put(new CachedMovie(generateMovie())));
+    }
+
+    double baseline = 0;
+    log.info("=======TEST RESULTS testGet_scalesWithThreads() TEST RESULTS=======");
+    for (int threads = 1; threads <= cores; threads *= 2) {
+      LongAdder hits = new LongAdder();
+      long elapsed = read(cache, ids, threads, readsPerThread, hits);
+      double throughput = (double) threads * readsPerThread / elapsed * 1_000_000;
+      if (threads == 1) {
+        baseline = throughput;
+      }
+      log.info("threads -> {}, reads/ms -> {}, scaling -> {}x", threads, (long) throughput,
+          String.format("%.2f", throughput / baseline));
+
+      assert hits.sum() == (long) threads * readsPerThread;
+    }
+    log.info("=======TEST RESULTS testGet_scalesWithThreads() TEST RESULTS=======");
+  }
+
+  @Test
+  public void testGet_expiredEntryRemovedOnce() throws InterruptedException {
+    final int threads = 8;
+    AtomicInteger removals = new AtomicInteger();
+    AtomicInteger stale = new AtomicInteger();
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .removalListener(event -> removals.incrementAndGet())
+        .evictionSleepTime(1)
+        .build();
+
+    for (int t = 0; t < 20; t++) {
+      removals.set(0);
+      UUID id = cache.put(new CachedMovie(generateMovie(), 20L, true));
+      sleep(30);
+      CountDownLatch start = new CountDownLatch(1);
+      ExecutorService executorService = Executors.newFixedThreadPool(threads);
+      for (int i = 0; i < threads; i++) {
+        executorService.submit(() -> {
+          start.await();
+          if (cache.get(id) != null) {
+            stale.incrementAndGet();
+          }
+          return null;
+        });
+      }
+      start.countDown();
+      executorService.shutdown();
+      executorService.awaitTermination(1, TimeUnit.MINUTES);
+      sleep(10);
+
+      assert removals.get() == 1;
+    }
+    assert stale.get() == 0;
+  }
+
+  private static long read(Cache<UUID, Movie> cache, List<UUID> ids, int threads, int reads,
+      LongAdder hits) throws InterruptedException {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    for (int i = 0; i < threads; i++) {
+      executorService.submit(() -> {
+        start.await();
+        int hit = 0;
+        for (int j = 0; j < reads; j++) {
+          if (cache.get(ids.get(j % ids.size())) != null) {
+            hit++;
+          }
+        }
+        hits.add(hit);
+        return null;
+      });
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    executorService.shutdown();
+    executorService.awaitTermination(1, TimeUnit.MINUTES);
+    return System.nanoTime() - begin;
+  }
+}
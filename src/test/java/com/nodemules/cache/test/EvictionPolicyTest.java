@@ -0,0 +1,122 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.EvictionPolicy;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import com.nodemules.cache.test.number.Traces;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * @author brent
+ * @since 7/31/18.
+ */
+@Slf4j
+@ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+public class EvictionPolicyTest extends AbstractTestRunner {
+
+  private static final int MAXIMUM_SIZE = 500;
+
+  @Test
+  public void testMaximumSize_lru() {
+    assertBounded(EvictionPolicy.lru());
+  }
+
+  @Test
+  public void testMaximumSize_lfu() {
+    assertBounded(EvictionPolicy.lfu());
+  }
+
+  @Test
+  public void testMaximumSize_windowTinyLfu() {
+    assertBounded(EvictionPolicy.windowTinyLfu());
+  }
+
+  @Test
+  public void testWindowTinyLfu_forgetsRemovedCandidates() {
+    EvictionPolicy<Integer> policy = EvictionPolicy.windowTinyLfu();
+    policy.initialize(10_000);
+    for (int i = 0; i < 2_000_000; i++) {
+      policy.onInsert(i);
+      if (i >= 100) {
+        policy.onRemove(i - 100);
+      }
+    }
+
+    int evicted = 0;
+    for (Integer key = policy.evict(); key != null; key = policy.evict()) {
+      assert key >= 2_000_000 - 100;
+      evicted++;
+    }
+    assert evicted == 100;
+  }
+
+  @Test
+  public void testHitRatio_zipfian() {
+    int[] trace = Traces.zipfian(50_000, 0.9, 500_000, 1);
+    double lru = hitRatio(EvictionPolicy::lru, trace);
+    double lfu = hitRatio(EvictionPolicy::lfu, trace);
+    double tinyLfu = hitRatio(EvictionPolicy::windowTinyLfu, trace);
+    log.info("=======TEST RESULTS testHitRatio_zipfian() TEST RESULTS=======");
+    log.info("LRU -> {}, LFU -> {}, W-TinyLFU -> {}", lru, lfu, tinyLfu);
+    log.info("=======TEST RESULTS testHitRatio_zipfian() TEST RESULTS=======");
+
+    assert tinyLfu > lru;
+  }
+
+  @Test
+  public void testHitRatio_scanning() {
+    int[] trace = Traces.scanning(50_000, 0.9, 500_000, 1_000, 2_000, 1);
+    double lru = hitRatio(EvictionPolicy::lru, trace);
+    double lfu = hitRatio(EvictionPolicy::lfu, trace);
+    double tinyLfu = hitRatio(EvictionPolicy::windowTinyLfu, trace);
+    log.info("=======TEST RESULTS testHitRatio_scanning() TEST RESULTS=======");
+    log.info("LRU -> {}, LFU -> {}, W-TinyLFU -> {}", lru, lfu, tinyLfu);
+    log.info("=======TEST RESULTS testHitRatio_scanning() TEST RESULTS=======");
+
+    assert tinyLfu > lru;
+  }
+
+  private static void assertBounded(EvictionPolicy<Integer> policy) {
+    AtomicInteger evictions = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(MAXIMUM_SIZE)
+        .evictionPolicy(policy)
+        .removalListener(event -> {
+          assert event.getRemovalCause() == RemovalCause.SIZE;
+          evictions.incrementAndGet();
+        })
+        .build();
+    int count = MAXIMUM_SIZE * 4;
+    for (int i = 0; i < count; i++) {
+      cache.put(new CachedNumber(i));
+      cache.get(i % 10);
+      assert cache.size() <= MAXIMUM_SIZE;
+    }
+
+    assert evictions.get() == count - MAXIMUM_SIZE;
+  }
+
+  private static double hitRatio(Supplier<EvictionPolicy<Integer>> policy, int[] trace) {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(MAXIMUM_SIZE)
+        .evictionPolicy(policy.get())
+        .build();
+    int hits = 0;
+    for (int key : trace) {
+      if (cache.get(key) != null) {
+        hits++;
+      } else {
+        cache.put(new CachedNumber(key));
+      }
+    }
+    return (double) hits / trace.length;
+  }
+}
@@ -0,0 +1,120 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * @author brent
+ * @since 8/2/18.
+ */
+@Slf4j
+@ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+public class ExpirationTest extends AbstractTestRunner {
+
+  @Test
+  public void testCleanUp_expiresOnlyDueRecords() {
+    final int count = 1_000;
+    Map<Integer, Long> expiries = new ConcurrentHashMap<>();
+    AtomicInteger early = new AtomicInteger();
+    AtomicInteger expired = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .removalListener(event -> {
+          assert event.getRemovalCause() == RemovalCause.EXPIRED;
+          if (System.nanoTime() <= expiries.get(event.getId())) {
+            early.incrementAndGet();
+          }
+          expired.incrementAndGet();
+        })
+        .build();
+
+    Random random = new Random(1);
+    for (int i = 0; i < count; i++) {
+      long ttl = 10 + random.nextInt(490);
+      expiries.put(i, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttl));
+      cache.put(new CachedNumber(i, ttl));
+    }
+    cache.put(new CachedNumber(count));
+
+    for (int i = 0; i < 7; i++) {
+      sleep(100);
+      cache.cleanUp();
+      log.debug("expired -> {}", expired.get());
+    }
+
+    assert early.get() == 0;
+    assert expired.get() == count;
+    assert cache.size() == 1;
+  }
+
+  @Test
+  public void testCleanUp_reschedulesRefreshedRecords() {
+    AtomicInteger expired = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ttl(150)
+        .refreshTtlOnAccess(true)
+        .enableEviction(false)
+        .removalListener(event -> expired.incrementAndGet())
+        .build();
+    cache.put(new CachedNumber(1));
+    cache.put(new CachedNumber(2));
+
+    for (int i = 0; i < 6; i++) {
+      sleep(50);
+      assert cache.get(1) != null;
+      cache.cleanUp();
+    }
+
+    assert expired.get() == 1;
+    assert cache.get(1) != null;
+    assert cache.get(2) == null;
+  }
+
+  @Test
+  public void testCleanUp_sweepCost() {
+    log.info("=======TEST RESULTS testCleanUp_sweepCost() TEST RESULTS=======");
+    for (int size : new int[]{10_000, 1_000_000}) {
+      Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+          .enableEviction(false)
+          .build();
+      List<CachedRecord<Integer, Integer>> records = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        CachedNumber record = new CachedNumber(i, 60_000L + i % 60_000);
+        records.add(record);
+        cache.put(record);
+      }
+
+      long start = System.nanoTime();
+      int due = 0;
+      for (CachedRecord<Integer, Integer> record : records) {
+        if (record.isExpired()) {
+          due++;
+        }
+      }
+      long scan = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      cache.cleanUp();
+      long wheel = System.nanoTime() - start;
+
+      log.info("entries -> {}, full scan -> {}us ({} due), timer wheel -> {}us", size,
+          scan / 1_000, due, wheel / 1_000);
+      assert cache.size() == size;
+    }
+    log.info("=======TEST RESULTS testCleanUp_sweepCost() TEST RESULTS=======");
+  }
+}
@@ -0,0 +1,139 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.Expiry;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class ExpiryTest extends AbstractTestRunner {
+
+  private FakeTicker ticker;
+  private List<RemovalEvent<Integer, Integer>> removals;
+
+  @Before
+  public void before() {
+    ticker = new FakeTicker();
+    removals = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void testExpireAfterCreate_dependsOnValue() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .expiry((key, value) -> value % 2 == 0 ? 1_000L : 10_000L)
+        .removalListener(removals::add)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedNumber(i));
+    }
+
+    ticker.advance(2, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assert cache.size() == 50;
+    assert removals.stream().allMatch(event -> event.getId() % 2 == 0
+        && event.getRemovalCause() == RemovalCause.EXPIRED);
+
+    ticker.advance(9, TimeUnit.SECONDS);
+    cache.cleanUp();
+    assert cache.size() == 0;
+    assert removals.size() == 100;
+  }
+
+  @Test
+  public void testExpireAfterCreate_ignoresRecordTtl() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .expiry((key, value) -> Expiry.ETERNAL)
+        .build();
+    cache.put(new CachedNumber(1, 100L));
+
+    ticker.advance(1, TimeUnit.DAYS);
+    cache.cleanUp();
+    assert cache.get(1) == 1;
+  }
+
+  @Test
+  public void testExpireAfterUpdate_keepsRemainingDuration() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .expiry(new Expiry<Integer, Integer>() {
+          @Override
+          public long expireAfterCreate(Integer key, Integer value) {
+            return 1_000L;
+          }
+
+          @Override
+          public long expireAfterUpdate(Integer key, Integer value, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+    cache.put(new CachedNumber(1));
+    ticker.advance(600, TimeUnit.MILLISECONDS);
+    cache.put(new CachedNumber(1));
+
+    ticker.advance(600, TimeUnit.MILLISECONDS);
+    assert cache.get(1) == null;
+  }
+
+  @Test
+  public void testExpireAfterRead_reschedulesOnTimerWheel() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .expiry(new Expiry<Integer, Integer>() {
+          @Override
+          public long expireAfterCreate(Integer key, Integer value) {
+            return key == 0 ? Expiry.ETERNAL : 60_000L;
+          }
+
+          @Override
+          public long expireAfterRead(Integer key, Integer value, long currentDuration) {
+            return 100L;
+          }
+        })
+        .removalListener(removals::add)
+        .build();
+    cache.put(new CachedNumber(0));
+    cache.put(new CachedNumber(1));
+    cache.put(new CachedNumber(2));
+    assert cache.get(0) == 0;
+    assert cache.get(1) == 1;
+
+    ticker.advance(200, TimeUnit.MILLISECONDS);
+    cache.cleanUp();
+    log.debug("removals -> {}", removals);
+    assert cache.size() == 1;
+    assert removals.size() == 2;
+    assert removals.stream().allMatch(event -> event.getId() != 2
+        && event.getRemovalCause() == RemovalCause.EXPIRED);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExpiry_negativeDurationRejected() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .expiry((key, value) -> -1L)
+        .build();
+    cache.put(new CachedNumber(1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testExpiry_withTtlRejected() {
+    Cache.<Integer, Integer>builder()
+        .ttl(1_000L)
+        .expiry((key, value) -> 1_000L)
+        .build();
+  }
+}
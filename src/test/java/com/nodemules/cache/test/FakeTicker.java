@@ -0,0 +1,26 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Ticker;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ticker that only moves when a test advances it.
+ *
+ * @author brent
+ * @since 8/4/18.
+ */
+public class FakeTicker implements Ticker {
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  @Override
+  public long read() {
+    return nanos.get();
+  }
+
+  public FakeTicker advance(long duration, TimeUnit unit) {
+    nanos.addAndGet(unit.toNanos(duration));
+    return this;
+  }
+}
@@ -0,0 +1,66 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.test.number.CachedNumber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assume;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class FootprintTest extends AbstractTestRunner {
+
+  private static final int ENTRIES = 1_000_000;
+
+  /**
+   * Per-record budget with compressed oops and a 12 byte object header.
+   */
+  private static final long RECORD_BUDGET = 64;
+
+  /**
+   * Per-entry budget for everything the cache holds for an entry besides its key and value: the
+   * record, the map's node and its share of the map's table.
+   */
+  private static final long ENTRY_BUDGET = 104;
+
+  static {
+    // The cache graph reaches lambdas, whose hidden classes JOL cannot otherwise read.
+    System.setProperty("jol.magicFieldOffset", "true");
+  }
+
+  @Test
+  public void testEntryFootprint_withinBudget() {
+    Assume.assumeTrue(VM.current().sizeOfField("oop") == 4
+        && VM.current().objectHeaderSize() == 12);
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ttl(60_000L)
+        .build();
+    long empty = withoutPayload(GraphLayout.parseInstance(cache));
+    for (int i = 0; i < ENTRIES; i++) {
+      cache.put(new CachedNumber(i));
+    }
+
+    GraphLayout layout = GraphLayout.parseInstance(cache);
+    long recordSize = ClassLayout.parseClass(CachedNumber.class).instanceSize();
+    long perEntry = (withoutPayload(layout) - empty) / ENTRIES;
+    log.debug("record -> {} bytes, per entry -> {} bytes", recordSize, perEntry);
+
+    assert layout.getClassCounts().count(CachedNumber.class) == ENTRIES;
+    assert recordSize <= RECORD_BUDGET;
+    assert perEntry <= ENTRY_BUDGET;
+    cache.close();
+  }
+
+  /**
+   * The size of the graph without the keys and values, which are the same {@link Integer}s.
+   */
+  private static long withoutPayload(GraphLayout layout) {
+    return layout.totalSize() - layout.getClassSizes().count(Integer.class);
+  }
+}
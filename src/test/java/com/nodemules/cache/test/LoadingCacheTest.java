@@ -0,0 +1,129 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheLoader;
+import com.nodemules.cache.core.CacheLoaderException;
+import com.nodemules.cache.core.LoadingCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/5/18.
+ */
+@Slf4j
+public class LoadingCacheTest extends AbstractTestRunner {
+
+  @Test
+  public void testGet_coalescesConcurrentMisses() throws Exception {
+    final int threads = 20;
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .build(key -> {
+          loads.incrementAndGet();
+          release.await();
+          return "value-" + key;
+        });
+
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    List<Future<String>> results = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      results.add(executorService.submit(() -> cache.get(1)));
+    }
+    sleep(100);
+    release.countDown();
+    for (Future<String> result : results) {
+      assert "value-1".equals(result.get(5, TimeUnit.SECONDS));
+    }
+    executorService.shutdown();
+
+    assert loads.get() == 1;
+    assert cache.size() == 1;
+  }
+
+  @Test
+  public void testGetAll_loadsMissesInOneBatch() {
+    AtomicInteger batches = new AtomicInteger();
+    AtomicInteger loaded = new AtomicInteger();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .build(new CacheLoader<Integer, String>() {
+          @Override
+          public String load(Integer key) {
+            throw new AssertionError("Expected a bulk load");
+          }
+
+          @Override
+          public Map<Integer, String> loadAll(Iterable<? extends Integer> keys) {
+            batches.incrementAndGet();
+            Map<Integer, String> values = new HashMap<>();
+            for (Integer key : keys) {
+              loaded.incrementAndGet();
+              if (key % 2 == 0) {
+                values.put(key, "value-" + key);
+              }
+            }
+            return values;
+          }
+        });
+    cache.getAll(Arrays.asList(0, 2));
+
+    Map<Integer, String> values = cache.getAll(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 4));
+
+    assert batches.get() == 2;
+    assert loaded.get() == 2 + 5;
+    assert values.size() == 4;
+    assert "value-6".equals(values.get(6));
+    assert !values.containsKey(1);
+    assert cache.getIfPresent(1) == null;
+  }
+
+  @Test
+  public void testGet_failedLoadIsNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .build(key -> {
+          if (loads.incrementAndGet() == 1) {
+            throw new IllegalStateException("backend unavailable");
+          }
+          return "value-" + key;
+        });
+
+    try {
+      cache.get(1);
+      assert false;
+    } catch (CacheLoaderException e) {
+      assert e.getCause() instanceof IllegalStateException;
+    }
+    assert cache.size() == 0;
+    assert "value-1".equals(cache.get(1));
+    assert "value-1".equals(cache.get(1));
+    assert loads.get() == 2;
+  }
+
+  @Test
+  public void testGet_nullIsNotCached() {
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .build(key -> {
+          loads.incrementAndGet();
+          return null;
+        });
+
+    assert cache.get(1) == null;
+    assert cache.get(1) == null;
+    assert loads.get() == 2;
+    assert cache.size() == 0;
+  }
+}
@@ -0,0 +1,202 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.CacheStats;
+import com.nodemules.cache.core.LongKeyCache;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class LongKeyCacheTest extends AbstractTestRunner {
+
+  private List<RemovalEvent<Long, String>> removals;
+
+  @Before
+  public void before() {
+    removals = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void testPutAndGet() {
+    LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .concurrencyLevel(4)
+        .recordStats()
+        .build();
+    for (long key = -5_000; key < 5_000; key++) {
+      assert cache.put(key, String.valueOf(key)) == null;
+    }
+    assert "7".equals(cache.put(7L, "seven"));
+
+    assert cache.size() == 10_000;
+    for (long key = -5_000; key < 5_000; key++) {
+      assert (key == 7 ? "seven" : String.valueOf(key)).equals(cache.get(key));
+    }
+    assert cache.get(5_000L) == null;
+    assert cache.get(Long.MIN_VALUE) == null;
+    CacheStats stats = cache.stats();
+    assert stats.getHitCount() == 10_000;
+    assert stats.getMissCount() == 2;
+    assert stats.getPutCount() == 10_001;
+  }
+
+  @Test
+  public void testInvalidate_keepsCollidingKeysReachable() {
+    LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .concurrencyLevel(1)
+        .removalListener(removals::add)
+        .build();
+    for (long key = 0; key < 1_000; key++) {
+      cache.put(key, String.valueOf(key));
+    }
+    for (long key = 0; key < 1_000; key += 2) {
+      cache.invalidate(key);
+    }
+    cache.invalidate(2_000L);
+
+    assert cache.size() == 500;
+    assert removals.size() == 500;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPLICIT
+        && event.getValue().equals(String.valueOf(event.getId())));
+    for (long key = 0; key < 1_000; key++) {
+      assert key % 2 == 0 ? cache.get(key) == null : String.valueOf(key).equals(cache.get(key));
+    }
+
+    cache.invalidateAll();
+    assert cache.size() == 0;
+    assert removals.size() == 1_000;
+  }
+
+  @Test
+  public void testTtl_expiresOnReadAndCleanUp() {
+    FakeTicker ticker = new FakeTicker();
+    LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .ticker(ticker)
+        .ttl(1_000L)
+        .recordStats()
+        .removalListener(removals::add)
+        .build();
+    for (long key = 0; key < 100; key++) {
+      cache.put(key, String.valueOf(key));
+    }
+    ticker.advance(2, TimeUnit.SECONDS);
+
+    assert cache.get(0L) == null;
+    assert cache.stats().getExpiredReadCount() == 1;
+    assert cache.stats().getMissCount() == 1;
+    cache.cleanUp();
+    assert cache.size() == 0;
+    assert removals.size() == 100;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPIRED);
+  }
+
+  @Test
+  public void testTtl_expiresInBackground() {
+    try (LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .ttl(50L)
+        .evictionSleepTime(20L)
+        .removalListener(removals::add)
+        .build()) {
+      for (long key = 0; key < 100; key++) {
+        cache.put(key, String.valueOf(key));
+      }
+
+      sleep(500);
+      assert cache.size() == 0;
+      assert removals.size() == 100;
+    }
+  }
+
+  @Test
+  public void testTtl_writesSweepExpiredEntries() {
+    FakeTicker ticker = new FakeTicker();
+    LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .ticker(ticker)
+        .ttl(1_000L)
+        .concurrencyLevel(1)
+        .build();
+    for (long key = 0; key < 10; key++) {
+      cache.put(key, String.valueOf(key));
+    }
+    ticker.advance(2, TimeUnit.SECONDS);
+    for (long key = 100; key < 110; key++) {
+      cache.put(key, String.valueOf(key));
+    }
+
+    log.debug("size -> {}", cache.size());
+    assert cache.size() == 10;
+  }
+
+  @Test
+  public void testRefreshTtlOnAccess() {
+    FakeTicker ticker = new FakeTicker();
+    LongKeyCache<String> cache = LongKeyCache.<String>builder()
+        .ticker(ticker)
+        .ttl(1_000L)
+        .refreshTtlOnAccess(true)
+        .build();
+    cache.put(1L, "one");
+    cache.put(2L, "two");
+    for (int i = 0; i < 5; i++) {
+      ticker.advance(600, TimeUnit.MILLISECONDS);
+      assert "one".equals(cache.get(1L));
+    }
+    assert cache.get(2L) == null;
+  }
+
+  @Test
+  public void testConcurrentWriters() throws InterruptedException {
+    final int threads = 8;
+    final int keysPerThread = 20_000;
+    LongKeyCache<Long> cache = LongKeyCache.<Long>builder().build();
+    AtomicInteger mismatches = new AtomicInteger();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      final long offset = (long) t * keysPerThread;
+      executorService.submit(() -> {
+        start.await();
+        for (long key = offset; key < offset + keysPerThread; key++) {
+          cache.put(key, key);
+          long earlier = offset + (key - offset) / 2;
+          Long value = cache.get(earlier);
+          if (earlier % 3 != 0 && (value == null || value != earlier)) {
+            mismatches.incrementAndGet();
+          }
+          if (key % 3 == 0) {
+            cache.invalidate(key);
+          }
+        }
+        return null;
+      });
+    }
+    start.countDown();
+    executorService.shutdown();
+    assert executorService.awaitTermination(30, TimeUnit.SECONDS);
+
+    long expected = 0;
+    for (long key = 0; key < (long) threads * keysPerThread; key++) {
+      if (key % 3 != 0) {
+        expected++;
+        assert cache.get(key) == key;
+      } else {
+        assert cache.get(key) == null;
+      }
+    }
+    assert cache.size() == expected;
+    assert mismatches.get() == 0;
+  }
+}
@@ -0,0 +1,288 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheWriter;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.InProcessInvalidationBus;
+import com.nodemules.cache.core.InvalidationBus;
+import com.nodemules.cache.core.LoadingCache;
+import com.nodemules.cache.core.MulticastInvalidationBus;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class NearCacheTest extends AbstractTestRunner {
+
+  private Map<Integer, String> store;
+  private InProcessInvalidationBus<Integer> bus;
+
+  @Before
+  public void before() {
+    store = new ConcurrentHashMap<>();
+    bus = new InProcessInvalidationBus<>();
+  }
+
+  @Test
+  public void testPut_invalidatesOtherNodes() {
+    LoadingCache<Integer, String> first = nearCache(bus.endpoint());
+    LoadingCache<Integer, String> second = nearCache(bus.endpoint());
+    first.put(new CachedValue(1, "one"));
+    assert "one".equals(second.get(1));
+
+    first.put(new CachedValue(1, "uno"));
+    assert "uno".equals(first.get(1));
+    assert await(() -> "uno".equals(second.get(1)));
+
+    second.invalidate(1);
+    assert await(() -> first.getIfPresent(1) == null);
+    assert store.isEmpty();
+    first.close();
+    second.close();
+  }
+
+  @Test
+  public void testInvalidation_discardsInFlightLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch invalidated = new CountDownLatch(1);
+    store.put(1, "old");
+    InvalidationBus<Integer> endpoint = bus.endpoint();
+    LoadingCache<Integer, String> first = nearCache(bus.endpoint());
+    LoadingCache<Integer, String> second = Cache.<Integer, String>builder()
+        .writer(new StoreWriter())
+        .invalidationBus(endpoint)
+        .build(key -> {
+          String value = store.get(key);
+          loading.countDown();
+          release.await();
+          return value;
+        });
+    endpoint.subscribe(keys -> invalidated.countDown());
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    Future<String> load = executorService.submit(() -> second.get(1));
+
+    assert loading.await(5, TimeUnit.SECONDS);
+    first.put(new CachedValue(1, "new"));
+    assert invalidated.await(5, TimeUnit.SECONDS);
+    release.countDown();
+
+    assert "old".equals(load.get(5, TimeUnit.SECONDS));
+    assert second.getIfPresent(1) == null;
+    executorService.shutdown();
+    first.close();
+    second.close();
+  }
+
+  @Test
+  public void testNearCache_isCollectedWhenDiscarded() throws IOException {
+    List<Collection<Integer>> published = Collections.synchronizedList(new ArrayList<>());
+    InvalidationBus<Integer> other = bus.endpoint();
+    other.subscribe(published::add);
+    LoadingCache<Integer, String> cache = nearCache(bus.endpoint());
+    cache.put(new CachedValue(1, "one"));
+    assert await(() -> published.size() == 1);
+    assert Thread.getAllStackTraces().keySet().stream()
+        .noneMatch(thread -> thread.getName().startsWith("cache-invalidator"));
+
+    WeakReference<LoadingCache<Integer, String>> reference = new WeakReference<>(cache);
+    cache = null;
+    for (int i = 0; i < 10 && reference.get() != null; i++) {
+      System.gc();
+      sleep(50);
+    }
+    assert reference.get() == null;
+    other.publish(Collections.singletonList(1));
+    other.close();
+  }
+
+  @Test
+  public void testLoad_doesNotInvalidateOtherNodes() {
+    List<Collection<Integer>> published = Collections.synchronizedList(new ArrayList<>());
+    InvalidationBus<Integer> endpoint = bus.endpoint();
+    bus.endpoint().subscribe(published::add);
+    store.put(1, "one");
+    LoadingCache<Integer, String> cache = nearCache(endpoint);
+
+    assert "one".equals(cache.get(1));
+    cache.close();
+    assert published.isEmpty();
+  }
+
+  @Test
+  public void testPublish_coalescesBursts() {
+    List<Collection<Integer>> published = Collections.synchronizedList(new ArrayList<>());
+    bus.endpoint().subscribe(keys -> published.add(new ArrayList<>(keys)));
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .invalidationBus(bus.endpoint())
+        .invalidationBatching(100, TimeUnit.MINUTES.toMillis(1))
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(new CachedNumber(i % 10));
+    }
+    for (int i = 0; i < 10; i++) {
+      cache.invalidate(i);
+    }
+    cache.close();
+
+    log.debug("published -> {}", published);
+    assert published.size() == 1;
+    assert published.get(0).size() == 10;
+  }
+
+  @Test
+  public void testPublish_batchesBySize() {
+    List<Collection<Integer>> published = Collections.synchronizedList(new ArrayList<>());
+    bus.endpoint().subscribe(keys -> published.add(new ArrayList<>(keys)));
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .invalidationBus(bus.endpoint())
+        .invalidationBatching(10, TimeUnit.MINUTES.toMillis(1))
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedNumber(i));
+    }
+
+    assert await(() -> published.size() == 10);
+    assert published.stream().allMatch(keys -> keys.size() == 10);
+    cache.close();
+  }
+
+  @Test
+  public void testMulticastLoopback_deliversToOtherNodesOnly() throws Exception {
+    MulticastInvalidationBus<Integer> first;
+    MulticastInvalidationBus<Integer> second;
+    try {
+      first = MulticastInvalidationBus.loopback(45_871);
+      second = MulticastInvalidationBus.loopback(45_871);
+    } catch (IOException e) {
+      log.warn("Multicast is unavailable", e);
+      Assume.assumeNoException(e);
+      return;
+    }
+    BlockingQueue<Collection<Integer>> firstReceived = new LinkedBlockingQueue<>();
+    BlockingQueue<Collection<Integer>> secondReceived = new LinkedBlockingQueue<>();
+    first.subscribe(firstReceived::add);
+    second.subscribe(secondReceived::add);
+
+    List<Integer> keys = new ArrayList<>();
+    for (int i = 0; i < 1_000; i++) {
+      keys.add(i);
+    }
+    first.publish(keys);
+    second.publish(Arrays.asList(-1, -2));
+
+    List<Integer> received = new ArrayList<>();
+    while (received.size() < keys.size()) {
+      Collection<Integer> batch = secondReceived.poll(5, TimeUnit.SECONDS);
+      assert batch != null;
+      received.addAll(batch);
+    }
+    assert received.equals(keys);
+    assert firstReceived.poll(5, TimeUnit.SECONDS).equals(Arrays.asList(-1, -2));
+    assert firstReceived.isEmpty();
+    first.close();
+    second.close();
+  }
+
+  @Test
+  public void testMulticastLoopback_dropsKeysOfOtherTypes() throws Exception {
+    MulticastInvalidationBus<Serializable> sender;
+    MulticastInvalidationBus<Serializable> receiver;
+    MulticastInvalidationBus<Serializable> dateReceiver;
+    try {
+      sender = MulticastInvalidationBus.loopback(45_872);
+      receiver = MulticastInvalidationBus.loopback(45_872);
+      dateReceiver = MulticastInvalidationBus.loopback(45_872, Date.class);
+    } catch (IOException e) {
+      log.warn("Multicast is unavailable", e);
+      Assume.assumeNoException(e);
+      return;
+    }
+    BlockingQueue<Collection<Serializable>> received = new LinkedBlockingQueue<>();
+    BlockingQueue<Collection<Serializable>> datesReceived = new LinkedBlockingQueue<>();
+    receiver.subscribe(received::add);
+    dateReceiver.subscribe(datesReceived::add);
+
+    Date date = new Date();
+    sender.publish(Collections.singletonList(date));
+    sender.publish(Arrays.asList(1, "two", 3L));
+
+    assert received.poll(5, TimeUnit.SECONDS).equals(Arrays.asList(1, "two", 3L));
+    assert datesReceived.poll(5, TimeUnit.SECONDS).equals(Collections.singletonList(date));
+    assert datesReceived.poll(5, TimeUnit.SECONDS).equals(Arrays.asList(1, "two", 3L));
+    assert received.isEmpty();
+    sender.close();
+    receiver.close();
+    dateReceiver.close();
+  }
+
+  private LoadingCache<Integer, String> nearCache(InvalidationBus<Integer> endpoint) {
+    return Cache.<Integer, String>builder()
+        .writer(new StoreWriter())
+        .invalidationBus(endpoint)
+        .build(store::get);
+  }
+
+  private static boolean await(Supplier<Boolean> condition) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.get()) {
+      if (System.nanoTime() > deadline) {
+        return false;
+      }
+      sleep(10);
+    }
+    return true;
+  }
+
+  private class StoreWriter implements CacheWriter<Integer, String> {
+
+    @Override
+    public void write(Integer key, String value) {
+      store.put(key, value);
+    }
+
+    @Override
+    public void delete(Integer key) {
+      store.remove(key);
+    }
+  }
+
+  private static class CachedValue extends CachedRecord<Integer, String> {
+
+    private static final long serialVersionUID = 5106914338474950254L;
+
+    CachedValue(Integer id, String value) {
+      super(id, value);
+    }
+
+    @Override
+    public String getValue() {
+      return super.getValue(String.class);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/10/18.
+ */
+@Slf4j
+public class OffHeapTest extends MovieCacheTest {
+
+  @Test
+  public void testGet_readsValueFromOffHeap() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20)
+        .build();
+    Map<UUID, Movie> movies = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      Movie movie = generateMovie();
+      movies.put(cache.put(new CachedMovie(movie)), movie);
+    }
+
+    movies.forEach((id, movie) -> {
+      Movie cached = cache.get(id);
+      assert cached != movie;
+      assert cached.equals(movie);
+    });
+  }
+
+  @Test
+  public void testPut_evictsBeyondCapacity() {
+    final int capacity = 1 << 16;
+    List<RemovalCause> removals = new ArrayList<>();
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(capacity)
+        .removalListener(event -> {
+          assert event.getValue() != null;
+          removals.add(event.getRemovalCause());
+        })
+        .build();
+    for (int i = 0; i < 2_000; i++) {
+      cache.put(new CachedMovie(generateMovie()));
+    }
+    cache.cleanUp();
+
+    log.debug("size -> {}, removals -> {}", cache.size(), removals.size());
+    assert cache.size() * 64 <= capacity;
+    assert removals.size() + cache.size() == 2_000;
+    assert removals.stream().allMatch(cause -> cause == RemovalCause.WEIGHTED);
+  }
+
+  @Test
+  public void testInvalidate_reusesChunks() {
+    List<RemovalEvent<UUID, Movie>> removals = new ArrayList<>();
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 16)
+        .removalListener(removals::add)
+        .build();
+    for (int i = 0; i < 5_000; i++) {
+      Movie movie = generateMovie();
+      UUID id = cache.put(new CachedMovie(movie));
+      assert movie.equals(cache.get(id));
+      cache.invalidate(id);
+      assert cache.get(id) == null;
+    }
+
+    assert removals.size() == 5_000;
+    assert removals.stream().allMatch(event -> event.getValue() != null);
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPLICIT);
+  }
+
+  @Test
+  public void testGet_readsValueFromMappedFile() throws IOException {
+    Path file = Files.createTempFile("off-heap", ".bin");
+    try (Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20, file)
+        .build()) {
+      Movie movie = generateMovie();
+      UUID id = cache.put(new CachedMovie(movie));
+
+      assert movie.equals(cache.get(id));
+      assert Files.size(file) > 0;
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  public void testPut_replacedRecordKeepsItsValue() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20)
+        .build();
+    UUID id = UUID.randomUUID();
+    Movie movie = generateMovie();
+    KeyedMovie replaced = new KeyedMovie(id, movie);
+    cache.put(replaced);
+    for (int i = 0; i < 100; i++) {
+      cache.put(new KeyedMovie(id, generateMovie()));
+    }
+
+    assert movie.equals(replaced.getValue());
+    assert !movie.equals(cache.get(id));
+  }
+
+  private static class KeyedMovie extends CachedRecord<UUID, Movie> {
+
+    private static final long serialVersionUID = 6080437616219815874L;
+
+    KeyedMovie(UUID id, Movie movie) {
+      super(id, movie);
+    }
+
+    @Override
+    public Movie getValue() {
+      return getValue(Movie.class);
+    }
+  }
+}
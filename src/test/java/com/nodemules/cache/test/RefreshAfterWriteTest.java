@@ -0,0 +1,159 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.LoadingCache;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/6/18.
+ */
+@Slf4j
+public class RefreshAfterWriteTest extends AbstractTestRunner {
+
+  private ExecutorService executor;
+  private FakeTicker ticker;
+
+  @Before
+  public void before() {
+    executor = Executors.newSingleThreadExecutor();
+    ticker = new FakeTicker();
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testGet_servesStaleValueWhileReloading() throws Exception {
+    AtomicInteger version = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    Semaphore reloaded = new Semaphore(0);
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .ticker(ticker)
+        .executor(executor)
+        .ttl(1000)
+        .refreshAfterWrite(100)
+        .build(key -> {
+          int loaded = version.incrementAndGet();
+          if (loaded > 1) {
+            release.await();
+            reloaded.release();
+          }
+          return key + "-v" + loaded;
+        });
+
+    assert "1-v1".equals(cache.get(1));
+    ticker.advance(50, TimeUnit.MILLISECONDS);
+    assert "1-v1".equals(cache.get(1));
+    assert version.get() == 1;
+
+    ticker.advance(100, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < 10; i++) {
+      assert "1-v1".equals(cache.get(1));
+    }
+    release.countDown();
+    assert reloaded.tryAcquire(5, TimeUnit.SECONDS);
+    executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+
+    assert version.get() == 2;
+    assert "1-v2".equals(cache.get(1));
+    cache.close();
+  }
+
+  @Test
+  public void testGet_blocksOnlyPastTtl() {
+    AtomicInteger version = new AtomicInteger();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .ticker(ticker)
+        .executor(command -> {
+          throw new AssertionError("Expected a blocking load");
+        })
+        .ttl(1000)
+        .refreshAfterWrite(500)
+        .build(key -> key + "-v" + version.incrementAndGet());
+
+    assert "1-v1".equals(cache.get(1));
+    ticker.advance(1001, TimeUnit.MILLISECONDS);
+    assert "1-v2".equals(cache.get(1));
+    cache.close();
+  }
+
+  @Test
+  public void testGet_failedRefreshKeepsValue() throws Exception {
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .ticker(ticker)
+        .executor(executor)
+        .refreshAfterWrite(100)
+        .build(key -> {
+          if (loads.incrementAndGet() > 1) {
+            throw new IllegalStateException("backend unavailable");
+          }
+          return "value-" + key;
+        });
+
+    assert "value-1".equals(cache.get(1));
+    ticker.advance(200, TimeUnit.MILLISECONDS);
+    assert "value-1".equals(cache.get(1));
+    executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+
+    assert loads.get() == 2;
+    assert "value-1".equals(cache.get(1));
+    executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+    assert loads.get() == 3;
+  }
+
+  @Test
+  public void testRefresh_discardedWhenKeyIsPutMeanwhile() throws Exception {
+    AtomicInteger version = new AtomicInteger();
+    AtomicReference<LoadingCache<Integer, String>> self = new AtomicReference<>();
+    LoadingCache<Integer, String> cache = Cache.<Integer, String>builder()
+        .ticker(ticker)
+        .executor(executor)
+        .refreshAfterWrite(100)
+        .maximumWeight(1_000)
+        .weigher((key, value) -> {
+          if ("1-v2".equals(value)) {
+            CompletableFuture.runAsync(() -> self.get().put(new PutRecord(1, "put"))).join();
+          }
+          return 1;
+        })
+        .build(key -> key + "-v" + version.incrementAndGet());
+    self.set(cache);
+
+    assert "1-v1".equals(cache.get(1));
+    ticker.advance(200, TimeUnit.MILLISECONDS);
+    assert "1-v1".equals(cache.get(1));
+    executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+
+    assert version.get() == 2;
+    assert "put".equals(cache.get(1));
+    cache.close();
+  }
+
+  private static final class PutRecord extends CachedRecord<Integer, String> {
+
+    private PutRecord(Integer id, String value) {
+      super(id, value);
+    }
+
+    @Override
+    public String getValue() {
+      return super.getValue(String.class);
+    }
+  }
+}
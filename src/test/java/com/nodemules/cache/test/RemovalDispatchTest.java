@@ -0,0 +1,188 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.core.RemovalListener;
+import com.nodemules.cache.core.Serializer;
+import com.nodemules.cache.core.StorageMode;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/15/18.
+ */
+@Slf4j
+public class RemovalDispatchTest extends MovieCacheTest {
+
+  private ExecutorService executor;
+  private List<List<RemovalEvent<Integer, Integer>>> batches;
+
+  @Before
+  public void before() {
+    executor = Executors.newSingleThreadExecutor();
+    batches = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testRemovalExecutor_slowListenerDoesNotBlockRemovals() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch delivered = new CountDownLatch(100);
+    List<Integer> removed = Collections.synchronizedList(new ArrayList<>());
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .removalExecutor(executor)
+        .removalListener(new RemovalListener<Integer, Integer>() {
+          @Override
+          public void onRemoval(RemovalEvent<Integer, Integer> event) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public void onRemovalBatch(List<RemovalEvent<Integer, Integer>> events) {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            batches.add(new ArrayList<>(events));
+            events.forEach(event -> {
+              removed.add(event.getId());
+              delivered.countDown();
+            });
+          }
+        })
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedNumber(i));
+    }
+
+    long start = System.nanoTime();
+    for (int i = 0; i < 100; i++) {
+      cache.invalidate(i);
+    }
+    assert System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1);
+    assert cache.size() == 0;
+
+    release.countDown();
+    assert delivered.await(5, TimeUnit.SECONDS);
+    log.debug("batches -> {}", batches.size());
+    assert batches.size() < 100;
+    for (int i = 0; i < 100; i++) {
+      assert removed.get(i) == i;
+    }
+  }
+
+  @Test
+  public void testOnRemovalBatch_receivesMaintenanceRemovals() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(10)
+        .removalListener(new RemovalListener<Integer, Integer>() {
+          @Override
+          public void onRemoval(RemovalEvent<Integer, Integer> event) {
+            throw new UnsupportedOperationException();
+          }
+
+          @Override
+          public void onRemovalBatch(List<RemovalEvent<Integer, Integer>> events) {
+            batches.add(new ArrayList<>(events));
+          }
+        })
+        .build();
+    cache.putAll(numbers(100));
+    cache.cleanUp();
+
+    assert batches.size() < 90;
+    assert batches.stream().mapToInt(List::size).sum() == 90;
+    assert batches.stream().flatMap(List::stream)
+        .allMatch(event -> event.getRemovalCause() == RemovalCause.SIZE);
+  }
+
+  @Test
+  public void testRemovalEvent_valueIsReadLazily() {
+    AtomicInteger deserialized = new AtomicInteger();
+    Serializer<Movie> json = Serializer.json(Movie.class);
+    List<RemovalEvent<UUID, Movie>> removals = new ArrayList<>();
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .storageMode(StorageMode.VALUE)
+        .serializer(new Serializer<Movie>() {
+          @Override
+          public byte[] serialize(Movie value) throws IOException {
+            return json.serialize(value);
+          }
+
+          @Override
+          public Movie deserialize(byte[] bytes) throws IOException {
+            deserialized.incrementAndGet();
+            return json.deserialize(bytes);
+          }
+        })
+        .removalListener(removals::add)
+        .build();
+    List<Movie> movies = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Movie movie = generateMovie();
+      movies.add(movie);
+      cache.invalidate(cache.put(new CachedMovie(movie)));
+    }
+
+    assert removals.size() == 10;
+    assert deserialized.get() == 0;
+    for (int i = 0; i < 10; i++) {
+      assert movies.get(i).equals(removals.get(i).getValue());
+      assert removals.get(i).getValue() == removals.get(i).getValue();
+    }
+    assert deserialized.get() == 10;
+  }
+
+  @Test
+  public void testRemovalExecutor_offHeapValueReadableUntilDelivered() throws Exception {
+    CountDownLatch delivered = new CountDownLatch(50);
+    List<Movie> values = Collections.synchronizedList(new ArrayList<>());
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20)
+        .removalExecutor(executor)
+        .removalListener(event -> {
+          values.add(event.getValue());
+          delivered.countDown();
+        })
+        .build();
+    List<Movie> movies = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      Movie movie = generateMovie();
+      movies.add(movie);
+      cache.invalidate(cache.put(new CachedMovie(movie)));
+    }
+
+    assert delivered.await(5, TimeUnit.SECONDS);
+    assert values.equals(movies);
+  }
+
+  private static List<CachedNumber> numbers(int count) {
+    List<CachedNumber> numbers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      numbers.add(new CachedNumber(i));
+    }
+    return numbers;
+  }
+}
@@ -0,0 +1,156 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.EvictionPolicy;
+import com.nodemules.cache.core.RemovalEvent;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class SegmentedCacheTest extends AbstractTestRunner {
+
+  private List<RemovalEvent<Integer, Integer>> removals;
+
+  @Before
+  public void before() {
+    removals = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void testMaximumSize_sharedAcrossSegments() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(100)
+        .concurrencyLevel(8)
+        .removalListener(removals::add)
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(new CachedNumber(i));
+    }
+    cache.cleanUp();
+
+    assert cache.size() == 100;
+    assert removals.size() == 900;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.SIZE);
+  }
+
+  @Test
+  public void testMaximumSize_concurrentWriters() throws InterruptedException {
+    final int threads = 8;
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(1_000)
+        .concurrencyLevel(threads)
+        .build();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      final int offset = t * 10_000;
+      executorService.submit(() -> {
+        start.await();
+        for (int i = 0; i < 10_000; i++) {
+          cache.put(new CachedNumber(offset + i));
+          cache.get(offset + i / 2);
+        }
+        return null;
+      });
+    }
+    start.countDown();
+    executorService.shutdown();
+    assert executorService.awaitTermination(30, TimeUnit.SECONDS);
+    cache.cleanUp();
+
+    log.debug("size -> {}", cache.size());
+    assert cache.size() == 1_000;
+  }
+
+  @Test
+  public void testMaximumWeight_sharedAcrossSegments() {
+    final long maximumWeight = 1_000;
+    AtomicLong weight = new AtomicLong();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumWeight(maximumWeight)
+        .weigher((key, value) -> value % 10)
+        .concurrencyLevel(4)
+        .removalListener(event -> weight.addAndGet(-(event.getValue() % 10)))
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(new CachedNumber(i));
+      weight.addAndGet(i % 10);
+      assert weight.get() <= maximumWeight;
+    }
+  }
+
+  @Test
+  public void testTtl_expiresInEverySegment() {
+    FakeTicker ticker = new FakeTicker();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .ttl(1_000L)
+        .maximumSize(1_000)
+        .concurrencyLevel(16)
+        .removalListener(removals::add)
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedNumber(i));
+    }
+    ticker.advance(2, TimeUnit.SECONDS);
+    cache.cleanUp();
+
+    assert cache.size() == 0;
+    assert removals.size() == 100;
+    assert removals.stream().allMatch(event -> event.getRemovalCause() == RemovalCause.EXPIRED);
+    cache.close();
+  }
+
+  @Test
+  public void testEvictionPolicy_perSegment() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumSize(64)
+        .concurrencyLevel(4)
+        .evictionPolicy(EvictionPolicy::lru)
+        .build();
+    for (int i = 0; i < 1_000; i++) {
+      cache.put(new CachedNumber(i));
+    }
+    cache.cleanUp();
+
+    assert cache.size() == 64;
+    assert cache.get(0) == null;
+    assert cache.get(999) == 999;
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvictionPolicy_sharedInstanceRejected() {
+    Cache.<Integer, Integer>builder()
+        .maximumSize(64)
+        .concurrencyLevel(4)
+        .evictionPolicy(EvictionPolicy.lru())
+        .build();
+  }
+
+  @Test
+  public void testEvictionPolicy_sharedInstanceIgnoredWhenUnbounded() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .concurrencyLevel(4)
+        .evictionPolicy(EvictionPolicy.lru())
+        .build();
+    cache.put(new CachedNumber(1));
+
+    assert cache.get(1) == 1;
+    cache.close();
+  }
+}
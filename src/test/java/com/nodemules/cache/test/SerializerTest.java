@@ -0,0 +1,166 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.SerializationException;
+import com.nodemules.cache.core.Serializer;
+import com.nodemules.cache.core.StorageMode;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/11/18.
+ */
+@Slf4j
+public class SerializerTest extends MovieCacheTest {
+
+  @Test
+  public void testGet_byValue_withSmile() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .storageMode(StorageMode.VALUE)
+        .serializer(Serializer.smile(Movie.class))
+        .build();
+    assertRoundTrip(cache);
+  }
+
+  @Test
+  public void testGet_offHeap_withSmile() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20)
+        .serializer(Serializer.smile(Movie.class))
+        .build();
+    assertRoundTrip(cache);
+  }
+
+  @Test
+  public void testGet_offHeap_withBytes() {
+    Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+        .offHeap(1 << 20)
+        .serializer(Serializer.bytes())
+        .build();
+    byte[] payload = new byte[300];
+    Arrays.fill(payload, (byte) 7);
+    cache.put(new CachedBytes("payload", payload));
+
+    byte[] cached = cache.get("payload");
+    assert cached != payload;
+    assert Arrays.equals(cached, payload);
+  }
+
+  @Test
+  public void testGet_byValue_withBytes_copiesArrays() {
+    Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+        .storageMode(StorageMode.VALUE)
+        .serializer(Serializer.bytes())
+        .build();
+    byte[] payload = {1, 2, 3};
+    cache.put(new CachedBytes("payload", payload));
+    payload[0] = 9;
+
+    byte[] cached = cache.get("payload");
+    assert Arrays.equals(cached, new byte[]{1, 2, 3});
+    cached[1] = 9;
+    assert Arrays.equals(cache.get("payload"), new byte[]{1, 2, 3});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuild_loadingByValue_withoutSerializer() {
+    Cache.<Integer, List<Movie>>builder()
+        .storageMode(StorageMode.VALUE)
+        .build(key -> Collections.emptyList());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testPut_valueOffHeap_withoutSerializer() {
+    Cache.<Integer, List<Movie>>builder()
+        .offHeap(1 << 20)
+        .build()
+        .put(1, Collections.emptyList());
+  }
+
+  @Test
+  public void testPut_valueByValue_withSerializer() {
+    Cache<String, byte[]> cache = Cache.<String, byte[]>builder()
+        .storageMode(StorageMode.VALUE)
+        .serializer(Serializer.bytes())
+        .build();
+    cache.put("payload", new byte[]{1, 2, 3});
+
+    assert Arrays.equals(cache.get("payload"), new byte[]{1, 2, 3});
+  }
+
+  @Test(expected = SerializationException.class)
+  public void testPut_throwsWhenValueCannotBeSerialized() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .storageMode(StorageMode.VALUE)
+        .serializer(new Serializer<Movie>() {
+          @Override
+          public byte[] serialize(Movie value) throws IOException {
+            throw new IOException("Unserializable");
+          }
+
+          @Override
+          public Movie deserialize(byte[] bytes) {
+            throw new UnsupportedOperationException();
+          }
+        })
+        .build();
+    cache.put(new CachedMovie(generateMovie()));
+  }
+
+  @Test
+  public void testPut_smileWeighsLessThanJson() {
+    final int entries = 1_000;
+    final long maximumWeight = 64 * 1024;
+    Cache<UUID, Movie> json = Cache.<UUID, Movie>builder()
+        .maximumWeight(maximumWeight)
+        .serializer(Serializer.json(Movie.class))
+        .build();
+    Cache<UUID, Movie> smile = Cache.<UUID, Movie>builder()
+        .maximumWeight(maximumWeight)
+        .serializer(Serializer.smile(Movie.class))
+        .build();
+    for (int i = 0; i < entries; i++) {
+      Movie movie = generateMovie();
+      json.put(new CachedMovie(movie));
+      smile.put(new CachedMovie(movie));
+    }
+    json.cleanUp();
+    smile.cleanUp();
+
+    log.debug("json -> {} entries, smile -> {} entries", json.size(), smile.size());
+    assert smile.size() > json.size();
+  }
+
+  private void assertRoundTrip(Cache<UUID, Movie> cache) {
+    for (int i = 0; i < 100; i++) {
+      Movie movie = generateMovie();
+      UUID id = cache.put(new CachedMovie(movie));
+      Movie cached = cache.get(id);
+      assert cached != movie;
+      assert movie.equals(cached);
+    }
+  }
+
+  private static class CachedBytes extends CachedRecord<String, byte[]> {
+
+    private static final long serialVersionUID = 4402286379261932580L;
+
+    CachedBytes(String id, byte[] value) {
+      super(id, value);
+    }
+
+    @Override
+    public byte[] getValue() {
+      return super.getValue(byte[].class);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/12/18.
+ */
+@Slf4j
+public class SnapshotTest extends MovieCacheTest {
+
+  private Path file;
+
+  @Before
+  public void before() throws IOException {
+    file = Files.createTempFile("cache", ".snapshot");
+  }
+
+  @After
+  public void after() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void testSerializedRecord_keepsTtlAndTimes() throws Exception {
+    CachedNumber record = new CachedNumber(1, 60_000L);
+    Cache.<Integer, Integer>builder().build().put(record);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(record);
+    }
+    CachedNumber copy;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (CachedNumber) in.readObject();
+    }
+
+    assert copy.getValue() == 1;
+    assert Duration.between(ZonedDateTime.now(), copy.getExpireTime()).getSeconds() > 50;
+
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().ttl(1L).build();
+    cache.put(copy);
+    sleep(50);
+    assert cache.get(1) == 1;
+  }
+
+  @Test
+  public void testWarmFrom_restoresEntries() throws Exception {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder().build();
+    Map<UUID, Movie> movies = new HashMap<>();
+    for (int i = 0; i < 2_500; i++) {
+      Movie movie = generateMovie();
+      movies.put(cache.put(new CachedMovie(movie)), movie);
+    }
+    assert cache.snapshotTo(file) == 2_500;
+    movies.forEach((id, movie) -> {
+      assert cache.get(id) == movie;
+    });
+
+    Cache<UUID, Movie> warmed = Cache.<UUID, Movie>builder().warmFrom(file).build();
+
+    assert warmed.warmed().get(10, TimeUnit.SECONDS) == 2_500;
+    assert warmed.size() == 2_500;
+    movies.forEach((id, movie) -> {
+      Movie cached = warmed.get(id);
+      assert movie.equals(cached);
+      assert warmed.get(id) == cached;
+    });
+  }
+
+  @Test
+  public void testWarmFrom_singleThreadedExecutor() throws Exception {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().build();
+    for (int i = 0; i < 5_000; i++) {
+      cache.put(new CachedNumber(i));
+    }
+    cache.snapshotTo(file);
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Cache<Integer, Integer> warmed = Cache.<Integer, Integer>builder()
+          .executor(executor)
+          .warmFrom(file)
+          .build();
+
+      assert warmed.warmed().get(10, TimeUnit.SECONDS) == 5_000;
+      assert warmed.size() == 5_000;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testWarmFrom_keepsRemainingTtl() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder().ticker(ticker).build();
+    cache.put(new CachedNumber(1, 10_000L));
+    cache.put(new CachedNumber(2, 1_000L));
+    cache.put(new CachedNumber(3));
+    ticker.advance(6, TimeUnit.SECONDS);
+    assert cache.snapshotTo(file) == 2;
+
+    FakeTicker restarted = new FakeTicker();
+    Cache<Integer, Integer> warmed = Cache.<Integer, Integer>builder()
+        .ticker(restarted)
+        .warmFrom(file)
+        .build();
+    assert warmed.warmed().get(10, TimeUnit.SECONDS) == 2;
+
+    restarted.advance(3, TimeUnit.SECONDS);
+    assert warmed.get(1) == 1;
+    assert warmed.get(2) == null;
+    assert warmed.get(3) == 3;
+    restarted.advance(1, TimeUnit.SECONDS);
+    assert warmed.get(1) == null;
+    assert warmed.get(3) == 3;
+  }
+
+  @Test
+  public void testWarmFrom_offHeap() throws Exception {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder().offHeap(1 << 20).build();
+    Map<UUID, Movie> movies = new HashMap<>();
+    for (int i = 0; i < 100; i++) {
+      Movie movie = generateMovie();
+      movies.put(cache.put(new CachedMovie(movie)), movie);
+    }
+    cache.snapshotTo(file);
+
+    Cache<UUID, Movie> warmed = Cache.<UUID, Movie>builder()
+        .offHeap(1 << 20)
+        .warmFrom(file)
+        .build();
+
+    assert warmed.warmed().get(10, TimeUnit.SECONDS) == 100;
+    movies.forEach((id, movie) -> {
+      assert movie.equals(warmed.get(id));
+    });
+  }
+
+  @Test
+  public void testWarmFrom_missingFile() throws Exception {
+    Files.delete(file);
+    Cache<UUID, Movie> warmed = Cache.<UUID, Movie>builder().warmFrom(file).build();
+
+    assert warmed.warmed().get(10, TimeUnit.SECONDS) == 0;
+    assert warmed.size() == 0;
+  }
+}
@@ -0,0 +1,178 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.spring.SpringCache;
+import com.nodemules.cache.spring.SpringCacheAutoConfiguration;
+import com.nodemules.cache.spring.SpringCacheManager;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.boot.test.util.EnvironmentTestUtils;
+import org.springframework.cache.Cache.ValueRetrievalException;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * @author brent
+ * @since 8/16/18.
+ */
+@Slf4j
+public class SpringCacheTest extends AbstractTestRunner {
+
+  @Test
+  public void testAutoConfiguration_buildsCachesFromProperties() {
+    try (AnnotationConfigApplicationContext context = context(
+        "nodemules.cache.cache-names=movies",
+        "nodemules.cache.maximum-size=10",
+        "nodemules.cache.record-stats=true")) {
+      CacheManager cacheManager = context.getBean(CacheManager.class);
+
+      assert cacheManager instanceof SpringCacheManager;
+      assert cacheManager.getCacheNames().equals(Collections.singleton("movies"));
+      assert cacheManager.getCache("books") == null;
+      SpringCache movies = (SpringCache) cacheManager.getCache("movies");
+      for (int i = 0; i < 100; i++) {
+        movies.put(i, "movie " + i);
+      }
+      movies.getNativeCache().cleanUp();
+      assert movies.getNativeCache().size() == 10;
+      assert movies.getNativeCache().stats().getPutCount() == 100;
+    }
+  }
+
+  @Test
+  public void testAutoConfiguration_backsOffWhenDisabled() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+      EnvironmentTestUtils.addEnvironment(context, "nodemules.cache.enabled=false");
+      context.register(CachingConfiguration.class, SpringCacheAutoConfiguration.class,
+          ConcurrentMapConfiguration.class);
+      context.refresh();
+
+      assert context.getBean(CacheManager.class) instanceof ConcurrentMapCacheManager;
+    }
+  }
+
+  @Test
+  public void testAutoConfiguration_backsOffWithoutEnableCaching() {
+    try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(
+        SpringCacheAutoConfiguration.class)) {
+      assert context.getBeansOfType(CacheManager.class).isEmpty();
+    }
+  }
+
+  @Test
+  public void testCacheable_syncLoadsOnce() throws Exception {
+    try (AnnotationConfigApplicationContext context = context()) {
+      MovieService service = context.getBean(MovieService.class);
+      ExecutorService executorService = Executors.newFixedThreadPool(8);
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<String>> titles = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        titles.add(executorService.submit(() -> {
+          start.await();
+          return service.title(42);
+        }));
+      }
+      start.countDown();
+      for (Future<String> title : titles) {
+        assert "title 42".equals(title.get(5, TimeUnit.SECONDS));
+      }
+      executorService.shutdown();
+
+      assert service.loads() == 1;
+      assert "title 42".equals(service.title(42));
+      assert service.loads() == 1;
+    }
+  }
+
+  @Test
+  public void testCache_holdsValuesOfAnyType() {
+    SpringCache cache = new SpringCache("values",
+        Cache.<Serializable, Object>builder().build(), true);
+    List<String> list = Arrays.asList("a", "b");
+    cache.put("string", "value");
+    cache.put("list", list);
+    cache.put("null", null);
+
+    assert "value".equals(cache.get("string", String.class));
+    assert list.equals(cache.get("list").get());
+    assert cache.get("null") != null && cache.get("null").get() == null;
+    assert cache.get("missing") == null;
+
+    assert cache.putIfAbsent("string", "other").get().equals("value");
+    assert cache.putIfAbsent("new", "fresh") == null;
+    assert "fresh".equals(cache.get("new", String.class));
+
+    cache.evict("string");
+    assert cache.get("string") == null;
+    cache.clear();
+    assert cache.getNativeCache().size() == 0;
+  }
+
+  @Test(expected = ValueRetrievalException.class)
+  public void testGet_loaderFailure() {
+    SpringCache cache = new SpringCache("values",
+        Cache.<Serializable, Object>builder().build(), false);
+    cache.get("key", () -> {
+      throw new IllegalStateException("store unavailable");
+    });
+  }
+
+  private static AnnotationConfigApplicationContext context(String... properties) {
+    AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+    EnvironmentTestUtils.addEnvironment(context, properties);
+    context.register(CachingConfiguration.class, SpringCacheAutoConfiguration.class);
+    context.refresh();
+    return context;
+  }
+
+  @Configuration
+  @EnableCaching
+  static class CachingConfiguration {
+
+    @Bean
+    public MovieService movieService() {
+      return new MovieService();
+    }
+  }
+
+  @Configuration
+  static class ConcurrentMapConfiguration {
+
+    @Bean
+    public CacheManager concurrentMapCacheManager() {
+      return new ConcurrentMapCacheManager();
+    }
+  }
+
+  public static class MovieService {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Cacheable(cacheNames = "titles", sync = true)
+    public String title(int id) {
+      loads.incrementAndGet();
+      sleep(100);
+      return "title " + id;
+    }
+
+    public int loads() {
+      return loads.get();
+    }
+  }
+}
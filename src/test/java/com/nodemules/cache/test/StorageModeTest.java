@@ -0,0 +1,90 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.Copier;
+import com.nodemules.cache.core.StorageMode;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import java.util.ArrayList;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * @author brent
+ * @since 7/30/18.
+ */
+@Slf4j
+@ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+public class StorageModeTest extends MovieCacheTest {
+
+  private static final Copier<Movie> MOVIE_COPIER = movie -> new Movie(movie.getMovieId(),
+      movie.getName(), movie.getYear(), new ArrayList<>(movie.getDirectors()));
+
+  @Test
+  public void testGet_byReference() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder().build();
+    Movie movie = generateMovie();
+    UUID id = cache.put(new CachedMovie(movie));
+
+    assert cache.get(id) == movie;
+  }
+
+  @Test
+  public void testGet_byValue() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .storageMode(StorageMode.VALUE)
+        .build();
+    assertStoredByValue(cache);
+  }
+
+  @Test
+  public void testGet_byValue_withCopier() {
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .copier(MOVIE_COPIER)
+        .build();
+    assertStoredByValue(cache);
+  }
+
+  @Test
+  public void testGet_throughputByStorageMode() {
+    final int reads = 200_000;
+    log.info("=======TEST RESULTS testGet_throughputByStorageMode() TEST RESULTS=======");
+    log.info("REFERENCE -> {} reads/ms", throughput(Cache.<UUID, Movie>builder().build(), reads));
+    log.info("VALUE (copier) -> {} reads/ms",
+        throughput(Cache.<UUID, Movie>builder().copier(MOVIE_COPIER).build(), reads));
+    log.info("VALUE (snapshot) -> {} reads/ms", throughput(Cache.<UUID, Movie>builder()
+        .storageMode(StorageMode.VALUE).build(), reads));
+    log.info("=======TEST RESULTS testGet_throughputByStorageMode() TEST RESULTS=======");
+  }
+
+  private static void assertStoredByValue(Cache<UUID, Movie> cache) {
+    Movie movie = generateMovie();
+    String name = movie.getName();
+    UUID id = cache.put(new CachedMovie(movie));
+    movie.setName("Mutated after put");
+
+    Movie retrieved = cache.get(id);
+    assert retrieved != movie;
+    assert name.equals(retrieved.getName());
+
+    retrieved.getDirectors().clear();
+    assert !cache.get(id).getDirectors().isEmpty();
+  }
+
+  private static long throughput(Cache<UUID, Movie> cache, int reads) {
+    UUID id = cache.put(new CachedMovie(generateMovie()));
+    for (int i = 0; i < reads / 10; i++) {
+      cache.get(id);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < reads; i++) {
+      cache.get(id);
+    }
+    return reads * 1_000_000L / Math.max(1, System.nanoTime() - start);
+  }
+}
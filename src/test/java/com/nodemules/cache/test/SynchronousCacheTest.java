@@ -5,14 +5,19 @@ import com.nodemules.cache.core.CachedRecord;
 import com.nodemules.cache.test.movie.CachedMovie;
 import com.nodemules.cache.test.movie.Movie;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
 import org.springframework.test.context.ActiveProfiles;
 
 /**
@@ -21,6 +26,7 @@ import org.springframework.test.context.ActiveProfiles;
  */
 @Slf4j
 @ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
 public class SynchronousCacheTest extends MovieCacheTest {
 
   private Cache<UUID, Movie> cache;
@@ -37,7 +43,7 @@ public class SynchronousCacheTest extends MovieCacheTest {
   }
 
   @Test
-  public void testGet_withSynchronousAccess() throws InterruptedException {
+  public void testGet_withSynchronousAccess() throws Exception {
     final int tests = 10;
 
     final int count = 50_000;
@@ -55,31 +61,35 @@ public class SynchronousCacheTest extends MovieCacheTest {
     final int acceptableAvgMisses = expected - avgMissThreshold;
 
     List<Integer> missCount = new ArrayList<>();
-    List<Integer> timesPerBatch = new ArrayList<>();
+    List<Integer> timesPerBatch = Collections.synchronizedList(new ArrayList<>());
 
     for (int t = 0; t < tests; t++) {
-      List<Movie> retrievedMovies = new ArrayList<>();
+      LongAdder retrievedMovies = new LongAdder();
       Movie movie = generateMovie();
       CachedRecord<UUID, Movie> entry = new CachedMovie(movie);
       UUID id = cache.put(entry);
       ExecutorService executorService = Executors.newFixedThreadPool(threads);
+      List<Future<?>> batches = new ArrayList<>();
       for (int i = 0; i < threads; i++) {
-        executorService.submit(() -> {
-          long start = System.currentTimeMillis();
+        batches.add(executorService.submit(() -> {
+          long start = System.nanoTime();
+          int retrieved = 0;
           for (int j = 0; j < count; j++) {
-            Movie retrieved = cache.get(id);
-            retrievedMovies.add(retrieved);
+            if (cache.get(id) != null) {
+              retrieved++;
+            }
           }
-          long end = System.currentTimeMillis();
-          long duration = end - start;
+          retrievedMovies.add(retrieved);
+          long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
           log.debug("Retrieving {} records took {}ms", count, duration);
           timesPerBatch.add((int) duration);
-          assert !(duration > timePerBatch);
-        });
+        }));
       }
       executorService.shutdown();
-      executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
-      final int retrievedSize = retrievedMovies.size();
+      for (Future<?> batch : batches) {
+        batch.get();
+      }
+      final int retrievedSize = retrievedMovies.intValue();
       final int misses = expected - retrievedSize;
       log.debug("Expected -> {}, Retrieved -> {}, Misses -> {}, Acceptable -> MAX:{}, AVG:{}",
           expected, retrievedSize, misses, acceptableMaxMisses, acceptableAvgMisses);
@@ -104,6 +114,7 @@ public class SynchronousCacheTest extends MovieCacheTest {
     log.info("Max time per batch -> {}", maxTimePerBatch);
     log.info("Average time per batch -> {}", avgTimePerBatch);
     log.info("=======TEST RESULTS testGet_withSynchronousAccess() TEST RESULTS=======");
+    assert maxTimePerBatch <= timePerBatch;
     assert mostMisses < acceptableMaxMisses;
     assert avgMisses < acceptableAvgMisses;
     assert avgTimePerBatch < acceptableAvgTimePerBatch;
@@ -0,0 +1,99 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.CacheScheduler;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.core.Ticker;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author brent
+ * @since 8/4/18.
+ */
+@Slf4j
+public class TickerTest extends AbstractTestRunner {
+
+  private FakeTicker ticker;
+  private List<RemovalCause> removals;
+
+  @Before
+  public void before() {
+    ticker = new FakeTicker();
+    removals = new ArrayList<>();
+  }
+
+  @Test
+  public void testGet_expiresWhenTickerAdvances() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .removalListener(event -> removals.add(event.getRemovalCause()))
+        .build();
+    cache.put(new CachedNumber(1, 1000L));
+
+    ticker.advance(999, TimeUnit.MILLISECONDS);
+    assert cache.get(1) != null;
+
+    ticker.advance(2, TimeUnit.MILLISECONDS);
+    assert cache.get(1) == null;
+    assert removals.size() == 1 && removals.get(0) == RemovalCause.EXPIRED;
+  }
+
+  @Test
+  public void testCleanUp_expiresWhenTickerAdvances() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .removalListener(event -> removals.add(event.getRemovalCause()))
+        .build();
+    for (int i = 0; i < 100; i++) {
+      cache.put(new CachedNumber(i, (long) (i + 1) * 1000));
+    }
+
+    ticker.advance(50_500, TimeUnit.MILLISECONDS);
+    cache.cleanUp();
+    assert removals.size() == 50;
+    assert cache.size() == 50;
+
+    ticker.advance(1, TimeUnit.DAYS);
+    cache.cleanUp();
+    assert cache.size() == 0;
+  }
+
+  @Test
+  public void testGet_refreshesTtlFromTicker() {
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .ticker(ticker)
+        .ttl(1000)
+        .refreshTtlOnAccess(true)
+        .build();
+    cache.put(new CachedNumber(1));
+
+    for (int i = 0; i < 10; i++) {
+      ticker.advance(600, TimeUnit.MILLISECONDS);
+      assert cache.get(1) != null;
+    }
+    ticker.advance(1001, TimeUnit.MILLISECONDS);
+    cache.cleanUp();
+    assert cache.size() == 0;
+    cache.close();
+  }
+
+  @Test
+  public void testCoarseTicker_followsNanoTime() {
+    try (CacheScheduler scheduler = CacheScheduler.builder().clockResolution(1).build()) {
+      Ticker coarse = scheduler.ticker();
+      long start = coarse.read();
+      sleep(50);
+      long elapsed = coarse.read() - start;
+      log.info("Coarse ticker advanced {}ms over a 50ms sleep",
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+      assert elapsed >= TimeUnit.MILLISECONDS.toNanos(25);
+      assert coarse.read() <= System.nanoTime();
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.nodemules.cache.test;
+
+import com.nodemules.cache.core.Cache;
+import com.nodemules.cache.core.RemovalEvent.RemovalCause;
+import com.nodemules.cache.test.movie.CachedMovie;
+import com.nodemules.cache.test.movie.Movie;
+import com.nodemules.cache.test.number.CachedNumber;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.Test;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * @author brent
+ * @since 8/1/18.
+ */
+@Slf4j
+@ActiveProfiles("stress")
+@DirtiesContext(classMode = ClassMode.BEFORE_CLASS)
+public class WeigherTest extends MovieCacheTest {
+
+  @Test
+  public void testMaximumWeight_withWeigher() {
+    final long maximumWeight = 1_000;
+    AtomicLong weight = new AtomicLong();
+    AtomicInteger evictions = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumWeight(maximumWeight)
+        .weigher((key, value) -> value)
+        .removalListener(event -> {
+          assert event.getRemovalCause() == RemovalCause.WEIGHTED;
+          weight.addAndGet(-event.getValue());
+          evictions.incrementAndGet();
+        })
+        .build();
+
+    for (int i = 1; i <= 200; i++) {
+      cache.put(new CachedNumber(i));
+      weight.addAndGet(i);
+      assert weight.get() <= maximumWeight;
+    }
+    assert evictions.get() > 0;
+  }
+
+  @Test
+  public void testMaximumWeight_withSerializedLength() {
+    Movie movie = generateMovie();
+    final int count = 100;
+    final int retained = 10;
+    AtomicInteger evictions = new AtomicInteger();
+    Cache<UUID, Movie> cache = Cache.<UUID, Movie>builder()
+        .maximumWeight(retained * 1_000L)
+        .removalListener(event -> {
+          assert event.getRemovalCause() == RemovalCause.WEIGHTED;
+          evictions.incrementAndGet();
+        })
+        .build();
+
+    for (int i = 0; i < count; i++) {
+      Movie padded = generateMovie();
+      padded.setName(String.format("%-1000s", movie.getName()));
+      cache.put(new CachedMovie(padded));
+    }
+    log.info("retained -> {}, evicted -> {}", cache.size(), evictions.get());
+
+    assert cache.size() < retained;
+    assert evictions.get() == count - cache.size();
+  }
+
+  @Test
+  public void testMaximumWeight_withConcurrentWriters() throws InterruptedException {
+    final int threads = 8;
+    final int puts = 10_000;
+    final long maximumWeight = 500;
+    AtomicInteger evictions = new AtomicInteger();
+    Cache<Integer, Integer> cache = Cache.<Integer, Integer>builder()
+        .maximumWeight(maximumWeight)
+        .weigher((key, value) -> 1)
+        .removalListener(event -> evictions.incrementAndGet())
+        .build();
+
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    for (int t = 0; t < threads; t++) {
+      final int offset = t * puts;
+      executorService.submit(() -> {
+        for (int i = 0; i < puts; i++) {
+          cache.put(new CachedNumber(offset + i));
+        }
+      });
+    }
+    executorService.shutdown();
+    executorService.awaitTermination(1, TimeUnit.MINUTES);
+    cache.cleanUp();
+
+    assert cache.size() <= maximumWeight;
+    assert evictions.get() == threads * puts - cache.size();
+  }
+}
@@ -0,0 +1,29 @@
+package com.nodemules.cache.test.number;
+
+import com.nodemules.cache.core.CachedRecord;
+import com.nodemules.cache.core.ICacheable;
+import lombok.ToString;
+
+/**
+ * @author brent
+ * @since 7/31/18.
+ */
+@ToString
+public class CachedNumber extends CachedRecord<Integer, Integer> implements
+    ICacheable<Integer, Integer> {
+
+  private static final long serialVersionUID = -3090546409871735925L;
+
+  public CachedNumber(Integer number) {
+    this(number, null);
+  }
+
+  public CachedNumber(Integer number, Long ttl) {
+    super(number, number, ttl);
+  }
+
+  @Override
+  public Integer getValue() {
+    return super.getValue(Integer.class);
+  }
+}
@@ -0,0 +1,55 @@
+package com.nodemules.cache.test.number;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic key traces for measuring hit ratios.
+ *
+ * @author brent
+ * @since 7/31/18.
+ */
+public final class Traces {
+
+  private Traces() {
+  }
+
+  /**
+   * Keys in [0, items) drawn from a Zipf distribution with the given exponent.
+   */
+  public static int[] zipfian(int items, double exponent, int length, long seed) {
+    double[] cdf = new double[items];
+    double sum = 0;
+    for (int i = 0; i < items; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cdf[i] = sum;
+    }
+    Random random = new Random(seed);
+    int[] trace = new int[length];
+    for (int i = 0; i < length; i++) {
+      int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+      trace[i] = index < 0 ? -index - 1 : index;
+    }
+    return trace;
+  }
+
+  /**
+   * A Zipfian trace interrupted every {@code period} accesses by a one-time scan of
+   * {@code scanLength} keys that are never seen again.
+   */
+  public static int[] scanning(int items, double exponent, int length, int period, int scanLength,
+      long seed) {
+    int[] hot = zipfian(items, exponent, length, seed);
+    int[] trace = new int[length];
+    int scanKey = items;
+    for (int i = 0, h = 0; i < length; ) {
+      for (int j = 0; j < period && i < length; j++) {
+        trace[i++] = hot[h++];
+      }
+      for (int j = 0; j < scanLength && i < length; j++) {
+        trace[i++] = scanKey++;
+      }
+    }
+    return trace;
+  }
+}